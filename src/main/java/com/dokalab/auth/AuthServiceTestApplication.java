@@ -1,9 +1,14 @@
 package com.dokalab.auth;
 
+import com.dokalab.auth.config.JwtRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
+@ImportRuntimeHints(JwtRuntimeHints.class)
 public class AuthServiceTestApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,47 @@
+package com.dokalab.auth.config;
+
+import com.dokalab.auth.grpc.ExtAuthzGrpcService;
+import com.dokalab.auth.grpc.GrpcServerLifecycle;
+import com.dokalab.auth.grpc.TokenVerificationGrpcService;
+import com.dokalab.auth.service.JwtService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+@Configuration
+@ConditionalOnProperty(name = "auth.grpc.enabled", havingValue = "true", matchIfMissing = true)
+public class GrpcServerConfig {
+
+    @Value("${auth.grpc.port:9090}")
+    private int port;
+    
+    @Value("${auth.grpc.threads:4}")
+    private int threads;
+    
+    @Value("${auth.grpc.verify-threads:16}")
+    private int verifyThreads;
+    
+    @Value("${auth.grpc.stream-window:8}")
+    private int streamWindow;
+    
+    @Value("${auth.grpc.in-process-name:}")
+    private String inProcessName;
+    
+    // gRPC 서버 설정 (별도 포트 및 실행기)
+    // 스트림 요청 검증은 전용 실행기에서 처리: Redis 대기 중에도 gRPC 실행기(단건 Verify/Check)는 막히지 않음
+    // 스트림 하나가 검증 실행기를 독점하지 않도록 윈도우는 검증 스레드 수의 절반으로 제한
+    @Bean
+    public GrpcServerLifecycle grpcServerLifecycle(JwtService jwtService) {
+        ExecutorService executor = GrpcServerLifecycle.newExecutor("grpc-auth", threads);
+        ExecutorService verificationExecutor = GrpcServerLifecycle.newExecutor("grpc-verify", verifyThreads);
+        int window = Math.max(1, Math.min(streamWindow, verifyThreads / 2));
+        System.out.println("[GRPC] Executors configured - Threads: " + threads + ", Verify threads: " + verifyThreads + ", Stream window: " + window);
+        return new GrpcServerLifecycle(port, executor, verificationExecutor, inProcessName, List.of(
+                new TokenVerificationGrpcService(jwtService, verificationExecutor, window),
+                new ExtAuthzGrpcService(jwtService)));
+    }
+}
@@ -0,0 +1,60 @@
+package com.dokalab.auth.config;
+
+import com.dokalab.auth.model.AuthResponse;
+import com.dokalab.auth.model.AuthTokens;
+import com.dokalab.auth.model.JwtPayload;
+import com.dokalab.auth.model.LoginCredentials;
+import com.dokalab.auth.model.User;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+import java.util.List;
+
+/**
+ * Reflection and resource hints for the jjwt and Jackson paths.
+ * Used by Spring AOT processing in the fast-startup build mode.
+ */
+public class JwtRuntimeHints implements RuntimeHintsRegistrar {
+
+    // jjwt looks up its implementation classes by name
+    private static final List<String> JJWT_TYPES = List.of(
+            "io.jsonwebtoken.impl.DefaultJwtBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtParser",
+            "io.jsonwebtoken.impl.DefaultClaims",
+            "io.jsonwebtoken.impl.DefaultHeader",
+            "io.jsonwebtoken.impl.DefaultJwsHeader",
+            "io.jsonwebtoken.impl.compression.DefaultCompressionCodecResolver",
+            "io.jsonwebtoken.jackson.io.JacksonSerializer",
+            "io.jsonwebtoken.jackson.io.JacksonDeserializer");
+    
+    // Models bound by Jackson in request and response bodies
+    private static final List<Class<?>> MODEL_TYPES = List.of(
+            AuthResponse.class,
+            AuthTokens.class,
+            JwtPayload.class,
+            LoginCredentials.class,
+            User.class);
+    
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (String type : JJWT_TYPES) {
+            hints.reflection().registerType(TypeReference.of(type),
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                    MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+        // jjwt discovers its JSON serializer through ServiceLoader
+        hints.resources().registerPattern("META-INF/services/io.jsonwebtoken.*");
+        // JFR settings read by AuthFlightRecording
+        hints.resources().registerPattern("jfr/auth.jfc");
+        
+        for (Class<?> type : MODEL_TYPES) {
+            hints.reflection().registerType(type,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                    MemberCategory.INVOKE_PUBLIC_METHODS,
+                    MemberCategory.DECLARED_FIELDS);
+        }
+    }
+}
@@ -1,33 +1,122 @@
 package com.dokalab.auth.config;
 
+import com.dokalab.auth.service.RevocationEpochCache;
+import com.dokalab.auth.store.ConsistentHashRing;
+import com.dokalab.auth.store.RedisCircuitBreaker;
+import com.dokalab.auth.store.RedisShard;
+import com.dokalab.auth.store.RedisShards;
+import com.dokalab.auth.store.RedisTokenStore;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.SocketOptions;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Configuration
+@ConditionalOnProperty(name = "auth.token-store.engine", havingValue = "redis", matchIfMissing = true)
 public class RedisConfig {
 
-    // Redis 연결 설정
+    @Value("${auth.redis.nodes:127.0.0.1:6379}")
+    private String nodes;
+    
+    @Value("${auth.redis.previous-nodes:}")
+    private String previousNodes;
+    
+    @Value("${auth.redis.password:userpw}")
+    private String password;
+    
+    @Value("${auth.redis.virtual-nodes:160}")
+    private int virtualNodes;
+    
+    @Value("${auth.redis.command-timeout-ms:100}")
+    private long commandTimeoutMs;
+    
+    @Value("${auth.redis.connect-timeout-ms:500}")
+    private long connectTimeoutMs;
+    
+    @Value("${auth.redis.breaker.failure-threshold:5}")
+    private int breakerFailureThreshold;
+    
+    @Value("${auth.redis.breaker.open-duration-ms:5000}")
+    private long breakerOpenDurationMs;
+    
+    // Redis 샤드 구성: 노드별 독립 연결 + 일관된 해싱(가상 노드)으로 키 분산
     @Bean
-    public RedisConnectionFactory redisConnectionFactory() {
+    public RedisShards redisShards(MeterRegistry meterRegistry, RevocationEpochCache revocationEpochCache) {
+        List<String> currentNodes = parseNodes(nodes);
+        List<String> oldNodes = parseNodes(previousNodes);
+        
+        // 이전/현재 구성에 모두 있는 노드는 같은 샤드 인스턴스를 공유
+        Map<String, RedisShard> shardsByName = new LinkedHashMap<>();
+        for (String node : currentNodes) {
+            shardsByName.computeIfAbsent(node, name -> createShard(name, meterRegistry));
+        }
+        for (String node : oldNodes) {
+            shardsByName.computeIfAbsent(node, name -> createShard(name, meterRegistry));
+        }
+        
+        ConsistentHashRing<RedisShard> ring = new ConsistentHashRing<>(select(shardsByName, currentNodes), virtualNodes);
+        ConsistentHashRing<RedisShard> previousRing = oldNodes.isEmpty() || oldNodes.equals(currentNodes)
+                ? null
+                : new ConsistentHashRing<>(select(shardsByName, oldNodes), virtualNodes);
+        RedisShards shards = new RedisShards(ring, previousRing, new ArrayList<>(shardsByName.values()));
+        
+        // 사용자별 폐기 시점(revocation epoch) 변경 알림 구독 (모든 샤드)
+        shards.subscribe(RedisTokenStore.REVOCATION_EPOCH_CHANNEL, revocationEpochCache::onEpochMessage);
+        System.out.println("[STORE] Redis shards configured - Nodes: " + currentNodes + ", Virtual nodes: " + virtualNodes
+                + (previousRing != null ? ", Resharding from: " + oldNodes : ""));
+        return shards;
+    }
+    
+    // 샤드 생성: 샤드마다 독립된 서킷 브레이커를 두어 장애 노드가 담당하는 키에만 폴백 적용
+    private RedisShard createShard(String node, MeterRegistry meterRegistry) {
+        RedisCircuitBreaker circuitBreaker = new RedisCircuitBreaker(node, breakerFailureThreshold, breakerOpenDurationMs);
+        return new RedisShard(node, createConnectionFactory(node), meterRegistry, circuitBreaker);
+    }
+    
+    // Redis 연결 설정
+    private LettuceConnectionFactory createConnectionFactory(String node) {
+        int separator = node.lastIndexOf(':');
         RedisStandaloneConfiguration redisConfig = new RedisStandaloneConfiguration();
-        redisConfig.setHostName("127.0.0.1");
-        redisConfig.setPort(6379);
-        redisConfig.setPassword("userpw");
-        return new LettuceConnectionFactory(redisConfig);
+        redisConfig.setHostName(node.substring(0, separator));
+        redisConfig.setPort(Integer.parseInt(node.substring(separator + 1)));
+        redisConfig.setPassword(password);
+        
+        // 명령별 타임아웃: Redis 지연 시 요청 스레드가 오래 묶이지 않도록 짧게 유지
+        // 연결이 끊긴 동안에는 명령을 쌓아두지 않고 즉시 실패시킴
+        ClientOptions clientOptions = ClientOptions.builder()
+                .socketOptions(SocketOptions.builder().connectTimeout(Duration.ofMillis(connectTimeoutMs)).build())
+                .disconnectedBehavior(ClientOptions.DisconnectedBehavior.REJECT_COMMANDS)
+                .build();
+        LettuceClientConfiguration clientConfig = LettuceClientConfiguration.builder()
+                .commandTimeout(Duration.ofMillis(commandTimeoutMs))
+                .clientOptions(clientOptions)
+                .build();
+        return new LettuceConnectionFactory(redisConfig, clientConfig);
     }
     
-    // RedisTemplate 설정
-    @Bean
-    public RedisTemplate<String, String> redisTemplate() {
-        RedisTemplate<String, String> redisTemplate = new RedisTemplate<>();
-        redisTemplate.setConnectionFactory(redisConnectionFactory());
-        redisTemplate.setKeySerializer(new StringRedisSerializer());
-        redisTemplate.setValueSerializer(new StringRedisSerializer());
-        return redisTemplate;
+    private static List<String> parseNodes(String value) {
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(node -> !node.isEmpty())
+                .toList();
+    }
+    
+    private static Map<String, RedisShard> select(Map<String, RedisShard> shardsByName, List<String> names) {
+        Map<String, RedisShard> selected = new LinkedHashMap<>();
+        names.forEach(name -> selected.put(name, shardsByName.get(name)));
+        return selected;
     }
-} 
\ No newline at end of file
+}
@@ -2,21 +2,30 @@ package com.dokalab.auth.controller;
 
 import com.dokalab.auth.model.AuthResponse;
 import com.dokalab.auth.model.AuthTokens;
+import com.dokalab.auth.model.JwtConstants;
+import com.dokalab.auth.model.JwtPayload;
 import com.dokalab.auth.model.LoginCredentials;
 import com.dokalab.auth.model.User;
 import com.dokalab.auth.service.AuthService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/auth")
 public class AuthController {
 
+    // Response headers carrying the verified identity to the gateway
+    private static final String USER_ID_HEADER = "X-User-Id";
+    private static final String USER_ROLE_HEADER = "X-User-Role";
+    
     private final AuthService authService;
     
     @Autowired
@@ -37,6 +46,9 @@ public class AuthController {
             AuthResponse response = authService.login(credentials);
             System.out.println("[AUTH] Login successful - User: " + response.getUser().getName());
             return ResponseEntity.ok(response);
+        } catch (IllegalStateException e) {
+            System.out.println("[AUTH] Login failed - Token store cannot take the session: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         } catch (Exception e) {
             System.out.println("[AUTH] Login failed - Reason: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
@@ -66,6 +78,41 @@ public class AuthController {
         return ResponseEntity.ok(response);
     }
     
+    /**
+     * Gateway token verification API
+     * Header-only variant for nginx auth_request and Envoy ext_authz.
+     * Answers with status and headers only, and allows the gateway to cache
+     * the decision for no longer than the token's remaining lifetime.
+     * 
+     * @param authorization Authorization header
+     * @return 204 with user headers if valid, 401 otherwise
+     */
+    @GetMapping("/verify")
+    public ResponseEntity<Void> verifyTokenHeader(@RequestHeader(value = "Authorization", required = false) String authorization) {
+        String bearerPrefix = JwtConstants.TOKEN_TYPE + " ";
+        if (authorization == null || !authorization.startsWith(bearerPrefix)) {
+            System.out.println("[AUTH] Gateway verification failed - No authentication token");
+            return gatewayUnauthorized();
+        }
+        
+        JwtPayload payload = authService.verifyToken(authorization.substring(bearerPrefix.length()));
+        if (payload == null) {
+            System.out.println("[AUTH] Gateway verification failed - Invalid token");
+            return gatewayUnauthorized();
+        }
+        
+        long maxAge = Math.max(0, (payload.getExp() - System.currentTimeMillis()) / 1000);
+        System.out.println("[AUTH] Gateway verification successful - User ID: " + payload.getSub() + ", Cache max-age: " + maxAge);
+        ResponseEntity.HeadersBuilder<?> response = ResponseEntity.noContent()
+                .cacheControl(CacheControl.maxAge(maxAge, TimeUnit.SECONDS))
+                .header(HttpHeaders.VARY, HttpHeaders.AUTHORIZATION)
+                .header(USER_ID_HEADER, payload.getSub());
+        if (payload.getRole() != null) {
+            response.header(USER_ROLE_HEADER, payload.getRole());
+        }
+        return response.build();
+    }
+    
     /**
      * Token refresh API
      * 
@@ -85,6 +132,9 @@ public class AuthController {
             AuthTokens tokens = authService.refreshToken(refreshToken);
             System.out.println("[AUTH] Token refresh successful");
             return ResponseEntity.ok(tokens);
+        } catch (IllegalStateException e) {
+            System.out.println("[AUTH] Token refresh failed - Token store cannot take the session: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         } catch (Exception e) {
             System.out.println("[AUTH] Token refresh failed - Reason: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
@@ -117,6 +167,36 @@ public class AuthController {
         return ResponseEntity.ok(response);
     }
     
+    /**
+     * Logout from all devices API
+     * Revokes every token issued to the user, including ones held by other devices.
+     * 
+     * @param tokenMap Request body containing access token
+     * @return Logout result
+     */
+    @PostMapping("/logout-all")
+    public ResponseEntity<Map<String, Boolean>> logoutEverywhere(@RequestBody Map<String, String> tokenMap) {
+        String accessToken = tokenMap.get("accessToken");
+        if (accessToken == null) {
+            System.out.println("[AUTH] Logout from all devices failed - Access token not provided");
+            return ResponseEntity.badRequest().build();
+        }
+        
+        System.out.println("[AUTH] Logout from all devices request");
+        try {
+            String userId = authService.logoutEverywhere(accessToken);
+            
+            Map<String, Boolean> response = new HashMap<>();
+            response.put("success", true);
+            
+            System.out.println("[AUTH] Logout from all devices successful - User ID: " + userId);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            System.out.println("[AUTH] Logout from all devices failed - Reason: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+    }
+    
     /**
      * Extract user info from token API
      * 
@@ -141,4 +221,14 @@ public class AuthController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Build an uncacheable 401 response for gateway verification.
+     */
+    private ResponseEntity<Void> gatewayUnauthorized() {
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .cacheControl(CacheControl.noStore())
+                .header(HttpHeaders.WWW_AUTHENTICATE, JwtConstants.TOKEN_TYPE)
+                .build();
+    }
+}
\ No newline at end of file
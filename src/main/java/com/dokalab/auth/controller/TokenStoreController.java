@@ -0,0 +1,146 @@
+package com.dokalab.auth.controller;
+
+import com.dokalab.auth.model.JwtPayload;
+import com.dokalab.auth.service.JwtService;
+import com.dokalab.auth.service.TokenStoreIntrospector;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/token-store")
+public class TokenStoreController {
+    
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    
+    private final JwtService jwtService;
+    private final TokenStoreIntrospector introspector;
+    private final ObjectMapper objectMapper;
+    private final long timeoutMs;
+    
+    @Autowired
+    public TokenStoreController(JwtService jwtService,
+                                TokenStoreIntrospector introspector,
+                                ObjectMapper objectMapper,
+                                @Value("${auth.introspection.timeout-ms:120000}") long timeoutMs) {
+        this.jwtService = jwtService;
+        this.introspector = introspector;
+        this.objectMapper = objectMapper;
+        this.timeoutMs = timeoutMs;
+    }
+    
+    /**
+     * Token store introspection endpoint
+     * Admin role required. Streams one JSON object per line: progress records while
+     * sampling, a record per key space, then a summary per key prefix with estimated
+     * counts, memory use and TTL / memory histograms. The stream is cut off after
+     * auth.introspection.timeout-ms, which also stops the sampling.
+     * 
+     * @param authorization Authorization header
+     * @param sampleLimit Maximum keys to sample in total
+     * @param batchSize Keys per SCAN batch
+     * @param pauseMs Pause between batches in milliseconds
+     * @return Streamed report, or 429 if an introspection is already running
+     *         (a request racing another one gets an error record instead)
+     */
+    @GetMapping("/introspect")
+    public ResponseEntity<ResponseBodyEmitter> introspect(@RequestHeader(value = "Authorization", required = false) String authorization,
+                                                          @RequestParam(required = false) Integer sampleLimit,
+                                                          @RequestParam(required = false) Integer batchSize,
+                                                          @RequestParam(required = false) Long pauseMs) {
+        System.out.println("[ADMIN] Token store introspection requested");
+        
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            System.out.println("[ADMIN] Introspection access failed - No authentication token");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        
+        String token = authorization.substring(7);
+        if (!jwtService.validateAccessToken(token)) {
+            System.out.println("[ADMIN] Introspection access failed - Invalid token");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        
+        JwtPayload payload = jwtService.extractAccessTokenPayload(token);
+        if (!"admin".equals(payload.getRole())) {
+            System.out.println("[ADMIN] Introspection access failed - Insufficient permissions (Role: " + payload.getRole() + ")");
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        
+        // Fast path only; the introspector itself makes sure one walk runs at a time
+        if (introspector.isRunning()) {
+            System.out.println("[ADMIN] Introspection rejected - Already running");
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+        }
+        
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(timeoutMs);
+        Thread worker = new Thread(() -> stream(emitter, sampleLimit, batchSize, pauseMs), "token-store-introspection");
+        worker.setDaemon(true);
+        // Stop sampling once nobody is reading the result
+        emitter.onTimeout(() -> {
+            System.out.println("[ADMIN] Introspection timed out after " + timeoutMs + "ms");
+            worker.interrupt();
+        });
+        emitter.onError(e -> worker.interrupt());
+        worker.start();
+        
+        return ResponseEntity.ok()
+                .contentType(NDJSON)
+                .body(emitter);
+    }
+    
+    private void stream(ResponseBodyEmitter emitter, Integer sampleLimit, Integer batchSize, Long pauseMs) {
+        try {
+            if (!introspector.introspect(sampleLimit, batchSize, pauseMs, record -> send(emitter, record))) {
+                System.out.println("[ADMIN] Introspection rejected - Already running");
+                send(emitter, error("Introspection already running"));
+            }
+            emitter.complete();
+        } catch (UncheckedIOException e) {
+            System.out.println("[ADMIN] Introspection aborted - Client disconnected or request timed out");
+        } catch (Exception e) {
+            System.out.println("[ADMIN] Introspection failed - " + e.getMessage());
+            try {
+                send(emitter, error(e.getMessage()));
+                emitter.complete();
+            } catch (UncheckedIOException ignored) {
+                // Response already closed
+            }
+        }
+    }
+    
+    /**
+     * Write one record as a line of JSON.
+     */
+    private void send(ResponseBodyEmitter emitter, Map<String, Object> record) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(record);
+            byte[] line = Arrays.copyOf(json, json.length + 1);
+            line[json.length] = '\n';
+            emitter.send(line, NDJSON);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (IllegalStateException e) {
+            // Emitter already completed, e.g. after a timeout
+            throw new UncheckedIOException(new IOException("Response already completed", e));
+        }
+    }
+    
+    private static Map<String, Object> error(String message) {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("type", "error");
+        error.put("message", message);
+        return error;
+    }
+}
@@ -0,0 +1,86 @@
+package com.dokalab.auth.grpc;
+
+import com.dokalab.auth.model.JwtConstants;
+import com.dokalab.auth.model.JwtPayload;
+import com.dokalab.auth.service.JwtService;
+import com.google.rpc.Code;
+import com.google.rpc.Status;
+import io.envoyproxy.envoy.config.core.v3.HeaderValue;
+import io.envoyproxy.envoy.config.core.v3.HeaderValueOption;
+import io.envoyproxy.envoy.service.auth.v3.AuthorizationGrpc;
+import io.envoyproxy.envoy.service.auth.v3.CheckRequest;
+import io.envoyproxy.envoy.service.auth.v3.CheckResponse;
+import io.envoyproxy.envoy.service.auth.v3.DeniedHttpResponse;
+import io.envoyproxy.envoy.service.auth.v3.OkHttpResponse;
+import io.envoyproxy.envoy.type.v3.HttpStatus;
+import io.envoyproxy.envoy.type.v3.StatusCode;
+import io.grpc.stub.StreamObserver;
+
+/**
+ * Envoy ext_authz (v3) authorization service.
+ * Allowed requests are forwarded upstream with the user ID and role headers.
+ */
+public class ExtAuthzGrpcService extends AuthorizationGrpc.AuthorizationImplBase {
+
+    // Envoy passes header names in lower case
+    private static final String AUTHORIZATION_HEADER = "authorization";
+    private static final String USER_ID_HEADER = "x-user-id";
+    private static final String USER_ROLE_HEADER = "x-user-role";
+    
+    private final JwtService jwtService;
+    
+    public ExtAuthzGrpcService(JwtService jwtService) {
+        this.jwtService = jwtService;
+    }
+    
+    /**
+     * Check an HTTP request forwarded by Envoy.
+     * @param request Check request
+     * @param responseObserver Response observer
+     */
+    @Override
+    public void check(CheckRequest request, StreamObserver<CheckResponse> responseObserver) {
+        String authorization = request.getAttributes().getRequest().getHttp()
+                .getHeadersMap().get(AUTHORIZATION_HEADER);
+        
+        String bearerPrefix = JwtConstants.TOKEN_TYPE + " ";
+        JwtPayload payload = null;
+        if (authorization != null && authorization.startsWith(bearerPrefix)) {
+            payload = jwtService.verifyAccessToken(authorization.substring(bearerPrefix.length()));
+        }
+        
+        responseObserver.onNext(payload != null ? allow(payload) : deny());
+        responseObserver.onCompleted();
+    }
+    
+    private CheckResponse allow(JwtPayload payload) {
+        OkHttpResponse.Builder ok = OkHttpResponse.newBuilder()
+                .addHeaders(header(USER_ID_HEADER, payload.getSub()));
+        if (payload.getRole() != null) {
+            ok.addHeaders(header(USER_ROLE_HEADER, payload.getRole()));
+        }
+        
+        return CheckResponse.newBuilder()
+                .setStatus(Status.newBuilder().setCode(Code.OK_VALUE))
+                .setOkResponse(ok)
+                .build();
+    }
+    
+    private CheckResponse deny() {
+        DeniedHttpResponse denied = DeniedHttpResponse.newBuilder()
+                .setStatus(HttpStatus.newBuilder().setCode(StatusCode.Unauthorized))
+                .addHeaders(header("www-authenticate", JwtConstants.TOKEN_TYPE))
+                .build();
+        
+        return CheckResponse.newBuilder()
+                .setStatus(Status.newBuilder().setCode(Code.UNAUTHENTICATED_VALUE))
+                .setDeniedResponse(denied)
+                .build();
+    }
+    
+    private static HeaderValueOption header(String key, String value) {
+        return HeaderValueOption.newBuilder()
+                .setHeader(HeaderValue.newBuilder().setKey(key).setValue(value))
+                .build();
+    }
+}
@@ -0,0 +1,122 @@
+package com.dokalab.auth.grpc;
+
+import io.grpc.BindableService;
+import io.grpc.Grpc;
+import io.grpc.InsecureServerCredentials;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import org.springframework.context.SmartLifecycle;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the gRPC server alongside the servlet container.
+ * The server listens on its own port and uses its own executor, so gRPC traffic
+ * never competes with Tomcat request threads. When an in-process name is set,
+ * the same services are also exposed on an in-process server for local testing.
+ */
+public class GrpcServerLifecycle implements SmartLifecycle {
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 5;
+    
+    private final int port;
+    private final ExecutorService executor;
+    private final ExecutorService verificationExecutor;
+    private final String inProcessName;
+    private final List<BindableService> services;
+    
+    private Server server;
+    private Server inProcessServer;
+    private volatile boolean running;
+    
+    /**
+     * @param port Port to listen on, 0 for any free port
+     * @param executor Executor for gRPC callbacks; shut down on stop
+     * @param verificationExecutor Executor the services verify stream requests on; shut down on stop
+     * @param inProcessName In-process server name, or empty for none
+     * @param services Services to expose
+     */
+    public GrpcServerLifecycle(int port, ExecutorService executor, ExecutorService verificationExecutor,
+                               String inProcessName, List<BindableService> services) {
+        this.port = port;
+        this.executor = executor;
+        this.verificationExecutor = verificationExecutor;
+        this.inProcessName = inProcessName;
+        this.services = services;
+    }
+    
+    /**
+     * Create a fixed-size executor of daemon threads.
+     * @param name Thread name prefix
+     * @param threads Number of threads
+     */
+    public static ExecutorService newExecutor(String name, int threads) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @Override
+    public void start() {
+        try {
+            ServerBuilder<?> builder = Grpc.newServerBuilderForPort(port, InsecureServerCredentials.create())
+                    .executor(executor);
+            services.forEach(builder::addService);
+            server = builder.build().start();
+            System.out.println("[GRPC] Server started - Port: " + server.getPort());
+            
+            if (inProcessName != null && !inProcessName.isEmpty()) {
+                InProcessServerBuilder inProcessBuilder = InProcessServerBuilder.forName(inProcessName)
+                        .executor(executor);
+                services.forEach(inProcessBuilder::addService);
+                inProcessServer = inProcessBuilder.build().start();
+                System.out.println("[GRPC] In-process server started - Name: " + inProcessName);
+            }
+        } catch (IOException e) {
+            executor.shutdownNow();
+            verificationExecutor.shutdownNow();
+            throw new UncheckedIOException("Failed to start gRPC server", e);
+        }
+        running = true;
+    }
+    
+    @Override
+    public void stop() {
+        shutdown(inProcessServer);
+        shutdown(server);
+        executor.shutdown();
+        verificationExecutor.shutdown();
+        running = false;
+        System.out.println("[GRPC] Server stopped");
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+    
+    private void shutdown(Server target) {
+        if (target == null) {
+            return;
+        }
+        target.shutdown();
+        try {
+            if (!target.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                target.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            target.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
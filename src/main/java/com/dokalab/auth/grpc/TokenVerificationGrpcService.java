@@ -0,0 +1,166 @@
+package com.dokalab.auth.grpc;
+
+import com.dokalab.auth.grpc.v1.TokenVerificationGrpc;
+import com.dokalab.auth.grpc.v1.VerifyRequest;
+import com.dokalab.auth.grpc.v1.VerifyResponse;
+import com.dokalab.auth.model.JwtPayload;
+import com.dokalab.auth.service.JwtService;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+
+import java.util.concurrent.Executor;
+
+/**
+ * gRPC token verification service for internal mesh clients.
+ * Reuses JwtService validation, so results match the REST verify endpoints.
+ */
+public class TokenVerificationGrpcService extends TokenVerificationGrpc.TokenVerificationImplBase {
+
+    private final JwtService jwtService;
+    private final Executor executor;
+    private final int streamWindow;
+    
+    /**
+     * @param jwtService Token validation
+     * @param executor Dedicated executor stream requests are verified on, separate from the gRPC executor
+     * @param streamWindow Maximum requests verified at once on one stream
+     */
+    public TokenVerificationGrpcService(JwtService jwtService, Executor executor, int streamWindow) {
+        this.jwtService = jwtService;
+        this.executor = executor;
+        this.streamWindow = Math.max(1, streamWindow);
+    }
+    
+    /**
+     * Verify a single access token.
+     * @param request Verification request
+     * @param responseObserver Response observer
+     */
+    @Override
+    public void verify(VerifyRequest request, StreamObserver<VerifyResponse> responseObserver) {
+        responseObserver.onNext(verifyToken(request));
+        responseObserver.onCompleted();
+    }
+    
+    /**
+     * Verify a stream of access tokens.
+     * Responses are sent as each verification finishes, so they may arrive out of order;
+     * clients match them by request ID.
+     * @param responseObserver Response observer
+     * @return Request observer
+     */
+    @Override
+    public StreamObserver<VerifyRequest> verifyStream(StreamObserver<VerifyResponse> responseObserver) {
+        System.out.println("[GRPC] Verification stream opened");
+        return new VerifyStream((ServerCallStreamObserver<VerifyResponse>) responseObserver);
+    }
+    
+    /**
+     * Build the verification response for one request.
+     */
+    private VerifyResponse verifyToken(VerifyRequest request) {
+        JwtPayload payload = jwtService.verifyAccessToken(request.getToken());
+        VerifyResponse.Builder response = VerifyResponse.newBuilder()
+                .setRequestId(request.getRequestId())
+                .setValid(payload != null);
+        
+        if (payload != null) {
+            response.setUserId(nullToEmpty(payload.getSub()))
+                    .setRole(nullToEmpty(payload.getRole()))
+                    .setExpiresAt(payload.getExp());
+        }
+        return response.build();
+    }
+    
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+    
+    /**
+     * One verification stream with manual flow control.
+     * Up to streamWindow requests are verified at once on the verification executor, so a
+     * slow Redis call only holds up its own token, and blocked verifications never occupy
+     * the gRPC executor serving unary calls. A new request is pulled from the client
+     * only after a response has been sent while the transport is ready, which bounds
+     * both the work in flight and the responses buffered for a slow reader.
+     */
+    private final class VerifyStream implements StreamObserver<VerifyRequest> {
+        
+        private final ServerCallStreamObserver<VerifyResponse> responses;
+        private final Object lock = new Object();
+        private int inFlight;
+        private int deferredRequests; // Requests to pull once the transport is ready again
+        private boolean halfClosed;
+        private boolean cancelled;
+        
+        VerifyStream(ServerCallStreamObserver<VerifyResponse> responses) {
+            this.responses = responses;
+            responses.disableAutoRequest();
+            responses.setOnReadyHandler(this::onReady);
+            responses.setOnCancelHandler(() -> {
+                synchronized (lock) {
+                    cancelled = true;
+                }
+                System.out.println("[GRPC] Verification stream cancelled by client");
+            });
+            responses.request(streamWindow);
+        }
+        
+        @Override
+        public void onNext(VerifyRequest request) {
+            synchronized (lock) {
+                inFlight++;
+            }
+            executor.execute(() -> respond(verifyToken(request)));
+        }
+        
+        @Override
+        public void onError(Throwable t) {
+            synchronized (lock) {
+                cancelled = true;
+            }
+            System.out.println("[GRPC] Verification stream cancelled - Reason: " + t.getMessage());
+        }
+        
+        @Override
+        public void onCompleted() {
+            synchronized (lock) {
+                halfClosed = true;
+                // Finish now if nothing is in flight; otherwise the last response finishes the stream
+                if (inFlight == 0 && !cancelled) {
+                    responses.onCompleted();
+                    System.out.println("[GRPC] Verification stream closed");
+                }
+            }
+        }
+        
+        private void respond(VerifyResponse response) {
+            synchronized (lock) {
+                inFlight--;
+                if (cancelled) {
+                    return;
+                }
+                responses.onNext(response);
+                if (halfClosed) {
+                    if (inFlight == 0) {
+                        responses.onCompleted();
+                        System.out.println("[GRPC] Verification stream closed");
+                    }
+                } else if (responses.isReady()) {
+                    responses.request(1);
+                } else {
+                    deferredRequests++;
+                }
+            }
+        }
+        
+        private void onReady() {
+            synchronized (lock) {
+                if (deferredRequests > 0 && !cancelled && !halfClosed) {
+                    responses.request(deferredRequests);
+                    deferredRequests = 0;
+                }
+            }
+        }
+    }
+}
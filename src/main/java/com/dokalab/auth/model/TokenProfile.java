@@ -0,0 +1,9 @@
+package com.dokalab.auth.model;
+
+/**
+ * Access token claim layouts
+ */
+public enum TokenProfile {
+    STANDARD, // sub, email, name, role, iat, exp
+    COMPACT   // sub, r (role code), iat, exp - email and name are served by /me
+}
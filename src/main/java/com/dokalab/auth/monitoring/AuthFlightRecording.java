@@ -0,0 +1,91 @@
+package com.dokalab.auth.monitoring;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Always-on, low-overhead flight recording of the auth service events.
+ * Uses the JDK default settings plus jfr/auth.jfc, keeps a bounded rolling buffer
+ * on disk, and can be dumped during an incident with:
+ * jcmd &lt;pid&gt; JFR.dump name=auth-service filename=incident.jfr
+ */
+@Component
+@ConditionalOnProperty(name = "auth.jfr.enabled", havingValue = "true")
+public class AuthFlightRecording implements SmartLifecycle {
+
+    public static final String RECORDING_NAME = "auth-service";
+    private static final String SETTINGS_RESOURCE = "jfr/auth.jfc";
+    
+    private final long maxAgeMs;
+    private final long maxSizeMb;
+    private volatile Recording recording;
+    
+    public AuthFlightRecording(@Value("${auth.jfr.max-age-ms:900000}") long maxAgeMs,
+                               @Value("${auth.jfr.max-size-mb:64}") long maxSizeMb) {
+        this.maxAgeMs = maxAgeMs;
+        this.maxSizeMb = maxSizeMb;
+    }
+    
+    @Override
+    public void start() {
+        Map<String, String> settings = new HashMap<>(loadConfiguration("default").getSettings());
+        settings.putAll(loadAuthSettings());
+        
+        Recording started = new Recording(settings);
+        started.setName(RECORDING_NAME);
+        started.setToDisk(true);
+        started.setMaxAge(Duration.ofMillis(maxAgeMs));
+        started.setMaxSize(maxSizeMb * 1024 * 1024);
+        started.start();
+        recording = started;
+        System.out.println("[JFR] Flight recording started - Name: " + RECORDING_NAME + ", Max age: " + maxAgeMs + "ms, Max size: " + maxSizeMb + "MB");
+    }
+    
+    @Override
+    public void stop() {
+        Recording current = recording;
+        if (current != null) {
+            current.close();
+            recording = null;
+            System.out.println("[JFR] Flight recording stopped");
+        }
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return recording != null;
+    }
+    
+    private static Configuration loadConfiguration(String name) {
+        try {
+            return Configuration.getConfiguration(name);
+        } catch (IOException | ParseException e) {
+            throw new IllegalStateException("Failed to load JFR configuration: " + name, e);
+        }
+    }
+    
+    private static Map<String, String> loadAuthSettings() {
+        try (Reader reader = new InputStreamReader(new ClassPathResource(SETTINGS_RESOURCE).getInputStream(), StandardCharsets.UTF_8)) {
+            return Configuration.create(reader).getSettings();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + SETTINGS_RESOURCE, e);
+        } catch (ParseException e) {
+            throw new IllegalStateException("Invalid JFR settings in " + SETTINGS_RESOURCE, e);
+        }
+    }
+}
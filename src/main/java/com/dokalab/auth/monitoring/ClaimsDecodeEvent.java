@@ -0,0 +1,49 @@
+package com.dokalab.auth.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event covering Jackson decoding of one JWT header or claims segment.
+ * Nested inside the parse stage, so the rest of that stage is Base64 and HMAC work.
+ */
+@Name("com.dokalab.auth.ClaimsDecode")
+@Label("Claims Decode")
+@Category({"Auth Service", "JWT"})
+@Description("Jackson decoding of a JWT header or claims segment")
+public final class ClaimsDecodeEvent extends Event {
+
+    @Label("Size")
+    @DataAmount
+    int bytes;
+    
+    @Label("Outcome")
+    String outcome;
+    
+    /**
+     * Create the event and start timing.
+     * @param bytes Size of the JSON being decoded
+     */
+    public static ClaimsDecodeEvent start(int bytes) {
+        ClaimsDecodeEvent event = new ClaimsDecodeEvent();
+        event.bytes = bytes;
+        event.begin();
+        return event;
+    }
+    
+    /**
+     * Stop timing and record the event if it is enabled and over its threshold.
+     * @param outcome success or error
+     */
+    public void finish(String outcome) {
+        end();
+        if (shouldCommit()) {
+            this.outcome = outcome;
+            commit();
+        }
+    }
+}
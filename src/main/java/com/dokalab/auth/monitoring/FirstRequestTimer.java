@@ -0,0 +1,75 @@
+package com.dokalab.auth.monitoring;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Logs how soon real traffic is served after startup.
+ * Records the JVM uptime and latency of the first request after the readiness state
+ * becomes ACCEPTING_TRAFFIC, and of the first one that completes within
+ * auth.startup.fast-request-ms. Runs first in the filter chain, so latencies include
+ * security and every other filter. Once both are logged, the filter only reads two flags.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class FirstRequestTimer extends OncePerRequestFilter {
+
+    private final long fastRequestMs;
+    private final AtomicBoolean firstLogged = new AtomicBoolean();
+    private final AtomicBoolean firstFastLogged = new AtomicBoolean();
+    private volatile long readyAtUptimeMs = -1;
+    
+    public FirstRequestTimer(@Value("${auth.startup.fast-request-ms:20}") long fastRequestMs) {
+        this.fastRequestMs = fastRequestMs;
+    }
+    
+    /**
+     * Start watching requests once the application accepts traffic.
+     */
+    @EventListener
+    public void onReadinessChange(AvailabilityChangeEvent<ReadinessState> event) {
+        if (event.getState() == ReadinessState.ACCEPTING_TRAFFIC && readyAtUptimeMs < 0) {
+            readyAtUptimeMs = ManagementFactory.getRuntimeMXBean().getUptime();
+        }
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (readyAtUptimeMs < 0 || firstFastLogged.get()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            long latencyMs = (System.nanoTime() - start) / 1_000_000;
+            long uptimeMs = ManagementFactory.getRuntimeMXBean().getUptime();
+            String path = request.getRequestURI();
+            if (firstLogged.compareAndSet(false, true)) {
+                System.out.println("[STARTUP] First request after ready - Path: " + path + ", Latency: " + latencyMs
+                        + " ms, JVM uptime: " + uptimeMs + " ms (" + (uptimeMs - readyAtUptimeMs) + " ms after ready)");
+            }
+            if (latencyMs <= fastRequestMs && firstFastLogged.compareAndSet(false, true)) {
+                System.out.println("[STARTUP] Time to first fast request (<= " + fastRequestMs + " ms) - Path: " + path
+                        + ", Latency: " + latencyMs + " ms, JVM uptime: " + uptimeMs + " ms (" + (uptimeMs - readyAtUptimeMs) + " ms after ready)");
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.dokalab.auth.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event covering the mapping of parsed claims to a JwtPayload.
+ */
+@Name("com.dokalab.auth.PayloadExtraction")
+@Label("Payload Extraction")
+@Category({"Auth Service", "JWT"})
+@Description("Mapping parsed token claims to a payload")
+public final class PayloadExtractionEvent extends Event {
+
+    @Label("Token Type")
+    String tokenType;
+    
+    @Label("Outcome")
+    String outcome;
+    
+    /**
+     * Create the event and start timing.
+     * @param tokenType "access" or "refresh"
+     */
+    public static PayloadExtractionEvent start(String tokenType) {
+        PayloadExtractionEvent event = new PayloadExtractionEvent();
+        event.tokenType = tokenType;
+        event.begin();
+        return event;
+    }
+    
+    /**
+     * Stop timing and record the event if it is enabled and over its threshold.
+     * @param outcome success or error
+     */
+    public void finish(String outcome) {
+        end();
+        if (shouldCommit()) {
+            this.outcome = outcome;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.dokalab.auth.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event covering one Redis shard call made through the shard's circuit breaker,
+ * including any wait for a Redis connection or reply.
+ */
+@Name("com.dokalab.auth.RedisOperation")
+@Label("Redis Operation")
+@Category({"Auth Service", "Token Store"})
+@Description("A Redis shard call made through the shard's circuit breaker")
+public final class RedisOperationEvent extends Event {
+
+    @Label("Shard")
+    String shard;
+    
+    @Label("Operation")
+    String operation;
+    
+    @Label("Outcome")
+    String outcome;
+    
+    @Label("Circuit State")
+    String circuitState;
+    
+    /**
+     * Create the event and start timing.
+     * @param shard Shard name
+     * @param operation Operation name, e.g. exists
+     */
+    public static RedisOperationEvent start(String shard, String operation) {
+        RedisOperationEvent event = new RedisOperationEvent();
+        event.shard = shard;
+        event.operation = operation;
+        event.begin();
+        return event;
+    }
+    
+    /**
+     * Stop timing and record the event if it is enabled and over its threshold.
+     * @param outcome success, error or short-circuited
+     * @param circuitState Circuit state after the call
+     */
+    public void finish(String outcome, Enum<?> circuitState) {
+        end();
+        if (shouldCommit()) {
+            this.outcome = outcome;
+            this.circuitState = circuitState.name();
+            commit();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.dokalab.auth.monitoring;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.io.DeserializationException;
+import io.jsonwebtoken.io.Deserializer;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * JWT JSON deserializer that records a ClaimsDecodeEvent around Jackson decoding.
+ * Decodes the same way as jjwt's default Jackson deserializer.
+ */
+public class TimedJsonDeserializer implements Deserializer<Map<String, ?>> {
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    
+    @Override
+    public Map<String, ?> deserialize(byte[] bytes) throws DeserializationException {
+        ClaimsDecodeEvent event = ClaimsDecodeEvent.start(bytes.length);
+        try {
+            Map<String, Object> value = objectMapper.readValue(bytes, MAP_TYPE);
+            event.finish("success");
+            return value;
+        } catch (IOException e) {
+            event.finish("error");
+            throw new DeserializationException("Unable to deserialize JSON: " + e.getMessage(), e);
+        }
+    }
+}
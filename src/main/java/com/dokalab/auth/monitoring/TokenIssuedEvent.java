@@ -0,0 +1,53 @@
+package com.dokalab.auth.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event covering the build and HMAC signing of one token.
+ */
+@Name("com.dokalab.auth.TokenIssued")
+@Label("Token Issued")
+@Category({"Auth Service", "JWT"})
+@Description("Building and signing an access or refresh token")
+public final class TokenIssuedEvent extends Event {
+
+    @Label("Token Type")
+    String tokenType;
+    
+    @Label("Profile")
+    String profile;
+    
+    @Label("Token Size")
+    @DataAmount
+    int tokenBytes;
+    
+    /**
+     * Create the event and start timing.
+     * @param tokenType "access" or "refresh"
+     * @param profile Claim layout, or null for refresh tokens
+     */
+    public static TokenIssuedEvent start(String tokenType, String profile) {
+        TokenIssuedEvent event = new TokenIssuedEvent();
+        event.tokenType = tokenType;
+        event.profile = profile;
+        event.begin();
+        return event;
+    }
+    
+    /**
+     * Stop timing and record the event if it is enabled and over its threshold.
+     * @param token Issued token
+     */
+    public void finish(String token) {
+        end();
+        if (shouldCommit()) {
+            tokenBytes = token.length();
+            commit();
+        }
+    }
+}
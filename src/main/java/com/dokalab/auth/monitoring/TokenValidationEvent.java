@@ -0,0 +1,53 @@
+package com.dokalab.auth.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event covering one stage of token validation.
+ * Stages: blacklist, stored-token (refresh tokens), parse (signature check and
+ * claims decoding by jjwt) and epoch.
+ */
+@Name("com.dokalab.auth.TokenValidation")
+@Label("Token Validation Stage")
+@Category({"Auth Service", "JWT"})
+@Description("One stage of access or refresh token validation")
+public final class TokenValidationEvent extends Event {
+
+    @Label("Token Type")
+    String tokenType;
+    
+    @Label("Stage")
+    String stage;
+    
+    @Label("Outcome")
+    String outcome;
+    
+    /**
+     * Create the event and start timing.
+     * @param tokenType "access" or "refresh"
+     * @param stage Validation stage
+     */
+    public static TokenValidationEvent start(String tokenType, String stage) {
+        TokenValidationEvent event = new TokenValidationEvent();
+        event.tokenType = tokenType;
+        event.stage = stage;
+        event.begin();
+        return event;
+    }
+    
+    /**
+     * Stop timing and record the event if it is enabled and over its threshold.
+     * @param outcome Stage outcome, e.g. pass, reject, expired
+     */
+    public void finish(String outcome) {
+        end();
+        if (shouldCommit()) {
+            this.outcome = outcome;
+            commit();
+        }
+    }
+}
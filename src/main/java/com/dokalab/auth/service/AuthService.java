@@ -8,10 +8,12 @@ import org.springframework.stereotype.Service;
 public class AuthService {
 
     private final JwtService jwtService;
+    private final RefreshSingleFlight refreshSingleFlight;
     
     @Autowired
-    public AuthService(JwtService jwtService) {
+    public AuthService(JwtService jwtService, RefreshSingleFlight refreshSingleFlight) {
         this.jwtService = jwtService;
+        this.refreshSingleFlight = refreshSingleFlight;
     }
     
     /**
@@ -64,6 +66,13 @@ public class AuthService {
         JwtPayload payload = jwtService.extractAccessTokenPayload(token);
         System.out.println("[SERVICE] User info extraction successful - User ID: " + payload.getSub());
         
+        // Compact tokens carry no email or name; look the user up instead
+        if (payload.getEmail() == null) {
+            User user = findUser(payload.getSub());
+            user.setRole(payload.getRole());
+            return user;
+        }
+        
         return User.builder()
                 .id(payload.getSub())
                 .email(payload.getEmail())
@@ -75,13 +84,24 @@ public class AuthService {
     /**
      * Token refresh
      * Uses Refresh Token to issue a new Access Token.
+     * Concurrent calls with the same Refresh Token share one rotation.
      * 
      * @param refreshToken Refresh Token
      * @return New token pair
      */
     public AuthTokens refreshToken(String refreshToken) {
         System.out.println("[SERVICE] Token refresh attempt");
-        
+        return refreshSingleFlight.execute(refreshToken, () -> rotateRefreshToken(refreshToken));
+    }
+    
+    /**
+     * Rotate a Refresh Token
+     * Validates the Refresh Token and issues a new token pair.
+     * 
+     * @param refreshToken Refresh Token
+     * @return New token pair
+     */
+    private AuthTokens rotateRefreshToken(String refreshToken) {
         JwtPayload payload = jwtService.extractRefreshTokenPayload(refreshToken);
         String userId = payload.getSub();
         System.out.println("[SERVICE] Refresh token payload extraction successful - User ID: " + userId);
@@ -94,13 +114,7 @@ public class AuthService {
         
         System.out.println("[SERVICE] Refresh token validation successful");
         
-        // Create temporary user info for testing
-        User user = User.builder()
-                .id(userId)
-                .email("test@example.com")
-                .name("Test User")
-                .role("user")
-                .build();
+        User user = findUser(userId);
         
         // Generate new tokens
         System.out.println("[SERVICE] Generating new tokens");
@@ -110,6 +124,22 @@ public class AuthService {
         return newTokens;
     }
     
+    /**
+     * Look up user information by ID
+     * Returns temporary user info for testing; a real application would query the user store.
+     * 
+     * @param userId User ID
+     * @return User information
+     */
+    private User findUser(String userId) {
+        return User.builder()
+                .id(userId)
+                .email("test@example.com")
+                .name("Test User")
+                .role("user")
+                .build();
+    }
+    
     /**
      * Process logout
      * Adds Access Token to blacklist and deletes Refresh Token.
@@ -131,6 +161,44 @@ public class AuthService {
         System.out.println("[SERVICE] Logout process complete");
     }
     
+    /**
+     * Token verification for gateways
+     * Validates the token and returns its payload in one pass.
+     * 
+     * @param token JWT token
+     * @return JWT payload if valid, null otherwise
+     */
+    public JwtPayload verifyToken(String token) {
+        System.out.println("[SERVICE] Attempting gateway token verification");
+        JwtPayload payload = jwtService.verifyAccessToken(token);
+        System.out.println("[SERVICE] Gateway token verification result: " + (payload != null ? "valid" : "invalid"));
+        return payload;
+    }
+    
+    /**
+     * Process logout from all devices
+     * Revokes every token issued to the token's user with a single epoch write,
+     * and deletes the Refresh Token.
+     * 
+     * @param accessToken Access Token identifying the user; must not be blacklisted or revoked
+     * @return User ID that was logged out
+     */
+    public String logoutEverywhere(String accessToken) {
+        System.out.println("[SERVICE] Starting logout from all devices");
+        
+        JwtPayload payload = jwtService.verifyAccessToken(accessToken);
+        if (payload == null) {
+            System.out.println("[SERVICE] Logout from all devices failed - Invalid or revoked access token");
+            throw new RuntimeException("Invalid access token");
+        }
+        String userId = payload.getSub();
+        jwtService.revokeAllTokens(userId);
+        jwtService.deleteRefreshToken(userId);
+        
+        System.out.println("[SERVICE] Logout from all devices complete - User ID: " + userId);
+        return userId;
+    }
+    
     /**
      * Token validation
      * 
@@ -0,0 +1,10 @@
+package com.dokalab.auth.service;
+
+/**
+ * What to do when the token store cannot answer and the local snapshot cannot decide.
+ * Applies per key: only keys owned by an unavailable Redis shard fall back.
+ */
+public enum FallbackPolicy {
+    FAIL_OPEN,   // Accept tokens that pass signature checks
+    FAIL_CLOSED  // Reject tokens that cannot be checked against Redis
+}
@@ -1,54 +1,107 @@
 package com.dokalab.auth.service;
 
 import com.dokalab.auth.model.*;
+import com.dokalab.auth.monitoring.PayloadExtractionEvent;
+import com.dokalab.auth.monitoring.TimedJsonDeserializer;
+import com.dokalab.auth.monitoring.TokenIssuedEvent;
+import com.dokalab.auth.monitoring.TokenValidationEvent;
+import com.dokalab.auth.store.TokenStore;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
+import java.util.Optional;
+import java.util.function.Supplier;
 
 @Service
 public class JwtService {
 
-    private final RedisTemplate<String, String> redisTemplate;
+    private final TokenStore tokenStore;
+    private final RevocationSnapshot revocationSnapshot;
+    private final RevocationEpochCache revocationEpochCache;
+    private final FallbackPolicy fallbackPolicy;
+    private final long snapshotMaxStalenessMs;
+    private final TokenProfile tokenProfile;
     
-    // Key prefixes for Redis storage
-    private static final String REFRESH_TOKEN_PREFIX = "refresh:";
-    private static final String BLACKLIST_PREFIX = "blacklist:";
+    // Compact profile: role claim name and role codes (index in the list)
+    private static final String COMPACT_ROLE_CLAIM = "r";
+    private static final List<String> COMPACT_ROLE_CODES = List.of("user", "admin");
+    
+    // Token types used in JFR events
+    private static final String ACCESS = "access";
+    private static final String REFRESH = "refresh";
+    
+    // Records Jackson decoding time separately from signature checks
+    private static final TimedJsonDeserializer JSON_DESERIALIZER = new TimedJsonDeserializer();
     
     @Autowired
-    public JwtService(RedisTemplate<String, String> redisTemplate) {
-        this.redisTemplate = redisTemplate;
+    public JwtService(TokenStore tokenStore,
+                      RevocationSnapshot revocationSnapshot,
+                      RevocationEpochCache revocationEpochCache,
+                      @Value("${auth.redis.fallback-policy:fail-closed}") FallbackPolicy fallbackPolicy,
+                      @Value("${auth.redis.snapshot.max-staleness-ms:30000}") long snapshotMaxStalenessMs,
+                      @Value("${auth.jwt.token-profile:standard}") TokenProfile tokenProfile) {
+        this.tokenStore = tokenStore;
+        this.revocationSnapshot = revocationSnapshot;
+        this.revocationEpochCache = revocationEpochCache;
+        this.fallbackPolicy = fallbackPolicy;
+        this.snapshotMaxStalenessMs = snapshotMaxStalenessMs;
+        this.tokenProfile = tokenProfile;
     }
     
     /**
-     * Generate Access Token
+     * Generate Access Token with the configured token profile
      * @param user User information
      * @return Generated JWT token
      */
     public String generateAccessToken(User user) {
-        System.out.println("[JWT] Starting access token generation - User: " + user.getEmail());
-        long now = System.currentTimeMillis();
+        return generateAccessToken(user, tokenProfile);
+    }
+    
+    /**
+     * Generate Access Token
+     * @param user User information
+     * @param profile Claim layout to use
+     * @return Generated JWT token
+     */
+    public String generateAccessToken(User user, TokenProfile profile) {
+        return generateAccessToken(user, profile, issueTime(revocationEpochCache.getStale(user.getId())));
+    }
+    
+    private String generateAccessToken(User user, TokenProfile profile, long now) {
+        System.out.println("[JWT] Starting access token generation - User: " + user.getEmail() + ", Profile: " + profile);
         long expiryTime = now + (JwtConstants.ACCESS_TOKEN_EXPIRY * 1000);
         
-        String token = Jwts.builder()
-                .setSubject(user.getId())
-                .claim("email", user.getEmail())
-                .claim("name", user.getName())
-                .claim("role", user.getRole())
+        TokenIssuedEvent event = TokenIssuedEvent.start(ACCESS, profile.name());
+        JwtBuilder builder = Jwts.builder()
+                .setSubject(user.getId());
+        if (profile == TokenProfile.COMPACT) {
+            int roleCode = COMPACT_ROLE_CODES.indexOf(user.getRole());
+            builder.claim(COMPACT_ROLE_CLAIM, roleCode >= 0 ? roleCode : user.getRole());
+        } else {
+            builder.claim("email", user.getEmail())
+                    .claim("name", user.getName())
+                    .claim("role", user.getRole());
+        }
+        
+        String token = builder
                 .setIssuedAt(new Date(now))
                 .setExpiration(new Date(expiryTime))
                 .signWith(getAccessTokenSecretKey(), SignatureAlgorithm.HS256)
                 .compact();
+        event.finish(token);
         
-        System.out.println("[JWT] Access token generation complete - Expiry time: " + new Date(expiryTime));
+        System.out.println("[JWT] Access token generation complete - Expiry time: " + new Date(expiryTime) + ", Size: " + token.length() + " bytes");
         return token;
     }
     
@@ -58,20 +111,30 @@ public class JwtService {
      * @return Generated Refresh Token
      */
     public String generateRefreshToken(User user) {
+        return generateRefreshToken(user, issueTime(revocationEpochCache.getStale(user.getId())));
+    }
+    
+    private String generateRefreshToken(User user, long now) {
         System.out.println("[JWT] Starting refresh token generation - User: " + user.getEmail());
-        long now = System.currentTimeMillis();
         long expiryTime = now + (JwtConstants.REFRESH_TOKEN_EXPIRY * 1000);
         
+        TokenIssuedEvent event = TokenIssuedEvent.start(REFRESH, null);
         String refreshToken = Jwts.builder()
                 .setSubject(user.getId())
                 .setIssuedAt(new Date(now))
                 .setExpiration(new Date(expiryTime))
                 .signWith(getRefreshTokenSecretKey(), SignatureAlgorithm.HS256)
                 .compact();
+        event.finish(refreshToken);
         
-        // Store Refresh Token in Redis
-        String key = REFRESH_TOKEN_PREFIX + user.getId();
-        redisTemplate.opsForValue().set(key, refreshToken, JwtConstants.REFRESH_TOKEN_EXPIRY, TimeUnit.SECONDS);
+        // Store Refresh Token; a token the store rejects is never handed out
+        try {
+            runStore(() -> tokenStore.saveRefreshToken(user.getId(), refreshToken, JwtConstants.REFRESH_TOKEN_EXPIRY),
+                    () -> System.out.println("[JWT] Token store unavailable - Refresh token not stored, User ID: " + user.getId()));
+        } catch (IllegalStateException e) {
+            System.out.println("[JWT] Refresh token generation failed - Reason: " + e.getMessage());
+            throw e;
+        }
         System.out.println("[JWT] Refresh token generation complete - User ID: " + user.getId() + ", Expiry time: " + new Date(expiryTime));
         
         return refreshToken;
@@ -79,13 +142,16 @@ public class JwtService {
     
     /**
      * Generate token pair (Access Token and Refresh Token) for a user.
+     * The user's revocation epoch is read from the token store first, so a pair issued
+     * right after a revocation on another node is not issued before it.
      * @param user User information
      * @return Generated token pair
      */
     public AuthTokens generateTokens(User user) {
         System.out.println("[JWT] Starting token pair generation - User: " + user.getEmail());
-        String accessToken = generateAccessToken(user);
-        String refreshToken = generateRefreshToken(user);
+        long now = issueTime(lookupRevocationEpoch(user.getId()));
+        String accessToken = generateAccessToken(user, tokenProfile, now);
+        String refreshToken = generateRefreshToken(user, now);
         
         System.out.println("[JWT] Token pair generation complete");
         return AuthTokens.builder()
@@ -96,28 +162,12 @@ public class JwtService {
     
     /**
      * Validate Access Token.
+     * Shares the verification path with verifyAccessToken so the two cannot drift apart.
      * @param token Token to validate
      * @return true if valid, false otherwise
      */
     public boolean validateAccessToken(String token) {
-        System.out.println("[JWT] Starting access token validation");
-        try {
-            // Check if token is blacklisted
-            if (isTokenBlacklisted(token)) {
-                System.out.println("[JWT] Access token validation failed - Token is blacklisted");
-                return false;
-            }
-            
-            Jwts.parserBuilder()
-                    .setSigningKey(getAccessTokenSecretKey())
-                    .build()
-                    .parseClaimsJws(token);
-            System.out.println("[JWT] Access token validation successful");
-            return true;
-        } catch (Exception e) {
-            System.out.println("[JWT] Access token validation failed - Reason: " + e.getMessage());
-            return false;
-        }
+        return verifyAccessToken(token) != null;
     }
     
     /**
@@ -129,18 +179,32 @@ public class JwtService {
     public boolean validateRefreshToken(String token, String userId) {
         System.out.println("[JWT] Starting refresh token validation - User ID: " + userId);
         try {
-            // Check if token matches the one stored in Redis
-            String key = REFRESH_TOKEN_PREFIX + userId;
-            String storedToken = redisTemplate.opsForValue().get(key);
-            if (storedToken == null || !storedToken.equals(token)) {
+            // Check if token matches the stored one (null result means the store was unavailable)
+            TokenValidationEvent storedTokenStage = TokenValidationEvent.start(REFRESH, "stored-token");
+            Optional<String> storedToken = callStore(() -> Optional.ofNullable(tokenStore.getRefreshToken(userId)),
+                    () -> null);
+            if (storedToken == null) {
+                if (fallbackPolicy == FallbackPolicy.FAIL_CLOSED) {
+                    storedTokenStage.finish("unavailable-reject");
+                    System.out.println("[JWT] Refresh token validation failed - Token store unavailable (fail-closed)");
+                    return false;
+                }
+                storedTokenStage.finish("unavailable-pass");
+                System.out.println("[JWT] Token store unavailable - Checking refresh token signature only (fail-open)");
+            } else if (!storedToken.map(token::equals).orElse(false)) {
+                storedTokenStage.finish("reject");
                 System.out.println("[JWT] Refresh token validation failed - Token does not match stored token or not found");
                 return false;
+            } else {
+                storedTokenStage.finish("pass");
             }
             
-            Jwts.parserBuilder()
-                    .setSigningKey(getRefreshTokenSecretKey())
-                    .build()
-                    .parseClaimsJws(token);
+            Claims claims = parseClaims(token, getRefreshTokenSecretKey(), REFRESH);
+            
+            if (isRevokedByEpoch(claims, REFRESH)) {
+                System.out.println("[JWT] Refresh token validation failed - Issued before user's revocation epoch");
+                return false;
+            }
             System.out.println("[JWT] Refresh token validation successful");
             return true;
         } catch (Exception e) {
@@ -149,6 +213,37 @@ public class JwtService {
         }
     }
     
+    /**
+     * Validate Access Token and extract its payload with a single parse.
+     * Used by gateway-facing checks that need both the decision and the claims.
+     * @param token Token to validate
+     * @return JWT payload if valid, null otherwise
+     */
+    public JwtPayload verifyAccessToken(String token) {
+        System.out.println("[JWT] Starting access token verification");
+        try {
+            // Check if token is blacklisted
+            if (isBlacklistedStage(token)) {
+                System.out.println("[JWT] Access token verification failed - Token is blacklisted");
+                return null;
+            }
+            
+            Claims claims = parseClaims(token, getAccessTokenSecretKey(), ACCESS);
+            
+            if (isRevokedByEpoch(claims, ACCESS)) {
+                System.out.println("[JWT] Access token verification failed - Issued before user's revocation epoch");
+                return null;
+            }
+            
+            JwtPayload payload = toAccessTokenPayload(claims);
+            System.out.println("[JWT] Access token verification successful - User ID: " + payload.getSub());
+            return payload;
+        } catch (Exception e) {
+            System.out.println("[JWT] Access token verification failed - Reason: " + e.getMessage());
+            return null;
+        }
+    }
+    
     /**
      * Extract user information from Access Token.
      * @param token JWT token
@@ -157,20 +252,7 @@ public class JwtService {
     public JwtPayload extractAccessTokenPayload(String token) {
         System.out.println("[JWT] Starting access token payload extraction");
         try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(getAccessTokenSecretKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
-            
-            JwtPayload payload = JwtPayload.builder()
-                    .sub(claims.getSubject())
-                    .email(claims.get("email", String.class))
-                    .name(claims.get("name", String.class))
-                    .role(claims.get("role", String.class))
-                    .iat(claims.getIssuedAt().getTime())
-                    .exp(claims.getExpiration().getTime())
-                    .build();
+            JwtPayload payload = decodeAccessToken(token);
             
             System.out.println("[JWT] Access token payload extraction complete - User: " + payload.getEmail());
             return payload;
@@ -180,6 +262,15 @@ public class JwtService {
         }
     }
     
+    /**
+     * Parse and map an Access Token without logging.
+     * Used by the warmup to time the parse alone.
+     * @throws JwtException if the token is invalid
+     */
+    JwtPayload decodeAccessToken(String token) {
+        return toAccessTokenPayload(parseClaims(token, getAccessTokenSecretKey(), ACCESS));
+    }
+    
     /**
      * Extract user information from Refresh Token.
      * @param token Refresh Token
@@ -188,17 +279,15 @@ public class JwtService {
     public JwtPayload extractRefreshTokenPayload(String token) {
         System.out.println("[JWT] Starting refresh token payload extraction");
         try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(getRefreshTokenSecretKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            Claims claims = parseClaims(token, getRefreshTokenSecretKey(), REFRESH);
             
+            PayloadExtractionEvent event = PayloadExtractionEvent.start(REFRESH);
             JwtPayload payload = JwtPayload.builder()
                     .sub(claims.getSubject())
                     .iat(claims.getIssuedAt().getTime())
                     .exp(claims.getExpiration().getTime())
                     .build();
+            event.finish("success");
             
             System.out.println("[JWT] Refresh token payload extraction complete - User ID: " + payload.getSub());
             return payload;
@@ -215,20 +304,19 @@ public class JwtService {
     public void blacklistToken(String token) {
         System.out.println("[JWT] Attempting to add token to blacklist");
         try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(getAccessTokenSecretKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            Claims claims = parseClaims(token, getAccessTokenSecretKey(), ACCESS);
             
             long expirationTime = claims.getExpiration().getTime();
             long now = System.currentTimeMillis();
             long ttl = (expirationTime - now) / 1000; // Convert to seconds
             
             if (ttl > 0) {
-                // Add to Redis blacklist
-                String blacklistKey = BLACKLIST_PREFIX + token;
-                redisTemplate.opsForValue().set(blacklistKey, "blacklisted", ttl, TimeUnit.SECONDS);
+                // Record locally first so this node honours the revocation even if the store is down
+                revocationSnapshot.add(token, expirationTime);
+                
+                // Add to blacklist
+                runStore(() -> tokenStore.blacklistToken(token, expirationTime),
+                        () -> System.out.println("[JWT] Token store unavailable - Token blacklisted on this node only"));
                 System.out.println("[JWT] Token successfully added to blacklist - Expiry in seconds: " + ttl);
             } else {
                 System.out.println("[JWT] Skipping blacklist addition - Token already expired");
@@ -244,9 +332,15 @@ public class JwtService {
      * @return true if blacklisted, false otherwise
      */
     public boolean isTokenBlacklisted(String token) {
-        String blacklistKey = BLACKLIST_PREFIX + token;
-        Boolean exists = redisTemplate.hasKey(blacklistKey);
-        if (Boolean.TRUE.equals(exists)) {
+        // Blacklist entries are never lifted, so a local hit is final
+        if (revocationSnapshot.contains(token)) {
+            System.out.println("[JWT] Token is blacklisted (local snapshot)");
+            return true;
+        }
+        
+        boolean blacklisted = callStore(() -> tokenStore.isBlacklisted(token),
+                () -> isBlacklistedWhileStoreUnavailable(token));
+        if (blacklisted) {
             System.out.println("[JWT] Token is blacklisted");
             return true;
         }
@@ -254,20 +348,266 @@ public class JwtService {
         return false;
     }
     
+    /**
+     * Revoke every token issued to a user so far.
+     * Writes a single not-before epoch instead of blacklisting tokens one by one,
+     * so it also covers tokens this service no longer holds.
+     * @param userId User ID
+     */
+    public void revokeAllTokens(String userId) {
+        System.out.println("[JWT] Revoking all tokens - User ID: " + userId);
+        
+        // iat has seconds precision, so round up: tokens issued during the current second are revoked too.
+        // Tokens issued from now on are dated at or after the epoch (see issueTime), so they stay valid.
+        long epoch = (System.currentTimeMillis() / 1000 + 1) * 1000;
+        revocationEpochCache.put(userId, epoch);
+        
+        // The epoch only needs to outlive the longest-lived token issued before it
+        runStore(() -> tokenStore.saveRevocationEpoch(userId, epoch, JwtConstants.REFRESH_TOKEN_EXPIRY),
+                () -> {
+                    revocationEpochCache.putUnsaved(userId, epoch);
+                    System.out.println("[JWT] Token store unavailable - Revocation epoch applied on this node only until stored, User ID: " + userId);
+                });
+        System.out.println("[JWT] All tokens revoked - User ID: " + userId + ", Not before: " + new Date(epoch));
+    }
+    
     /**
      * Delete a user's Refresh Token.
      * @param userId User ID
      */
     public void deleteRefreshToken(String userId) {
-        String key = REFRESH_TOKEN_PREFIX + userId;
-        Boolean deleted = redisTemplate.delete(key);
-        if (Boolean.TRUE.equals(deleted)) {
+        boolean deleted = callStore(() -> tokenStore.deleteRefreshToken(userId),
+                () -> false);
+        if (deleted) {
             System.out.println("[JWT] Refresh token successfully deleted - User ID: " + userId);
         } else {
             System.out.println("[JWT] Failed to delete refresh token or token not found - User ID: " + userId);
         }
     }
     
+    /**
+     * Refresh the local revocation snapshot from the token store.
+     */
+    @Scheduled(fixedDelayString = "${auth.redis.snapshot.refresh-interval-ms:5000}")
+    public void refreshRevocationSnapshot() {
+        runStore(() -> revocationSnapshot.refresh(tokenStore.loadRecentRevocations(System.currentTimeMillis())),
+                () -> { });
+    }
+    
+    /**
+     * Store revocation epochs that were applied locally while the token store was unavailable.
+     * A newer epoch already in the store is left alone.
+     */
+    @Scheduled(fixedDelayString = "${auth.revocation.epoch-flush-interval-ms:5000}")
+    public void flushUnsavedRevocationEpochs() {
+        for (Map.Entry<String, Long> entry : revocationEpochCache.getUnsaved().entrySet()) {
+            String userId = entry.getKey();
+            long epoch = entry.getValue();
+            long ttlSeconds = JwtConstants.REFRESH_TOKEN_EXPIRY - (System.currentTimeMillis() - epoch) / 1000;
+            boolean saved = ttlSeconds <= 0 || callStore(() -> {
+                Long stored = tokenStore.getRevocationEpoch(userId);
+                if (stored == null || stored < epoch) {
+                    tokenStore.saveRevocationEpoch(userId, epoch, ttlSeconds);
+                }
+                return true;
+            }, () -> false);
+            if (!saved) {
+                return; // Still unavailable; retry on the next run
+            }
+            revocationEpochCache.markSaved(userId, epoch);
+            System.out.println("[JWT] Revocation epoch stored after token store recovery - User ID: " + userId);
+        }
+    }
+    
+    /**
+     * Check if a token was issued before its user's revocation epoch.
+     */
+    private boolean isRevokedByEpoch(Claims claims, String tokenType) {
+        String userId = claims.getSubject();
+        Date issuedAt = claims.getIssuedAt();
+        if (userId == null || issuedAt == null) {
+            return false;
+        }
+        TokenValidationEvent event = TokenValidationEvent.start(tokenType, "epoch");
+        boolean revoked = issuedAt.getTime() < getRevocationEpoch(userId);
+        event.finish(revoked ? "reject" : "pass");
+        return revoked;
+    }
+    
+    /**
+     * Blacklist check as a timed validation stage.
+     */
+    private boolean isBlacklistedStage(String token) {
+        TokenValidationEvent event = TokenValidationEvent.start(ACCESS, "blacklist");
+        boolean blacklisted = isTokenBlacklisted(token);
+        event.finish(blacklisted ? "reject" : "pass");
+        return blacklisted;
+    }
+    
+    /**
+     * Verify a token's signature and expiry and decode its claims, as a timed validation stage.
+     * @throws JwtException if the token is invalid
+     */
+    private Claims parseClaims(String token, SecretKey key, String tokenType) {
+        TokenValidationEvent event = TokenValidationEvent.start(tokenType, "parse");
+        try {
+            Claims claims = Jwts.parserBuilder()
+                    .setSigningKey(key)
+                    .deserializeJsonWith(JSON_DESERIALIZER)
+                    .build()
+                    .parseClaimsJws(token)
+                    .getBody();
+            event.finish("pass");
+            return claims;
+        } catch (ExpiredJwtException e) {
+            event.finish("expired");
+            throw e;
+        } catch (SignatureException e) {
+            event.finish("bad-signature");
+            throw e;
+        } catch (MalformedJwtException e) {
+            event.finish("malformed");
+            throw e;
+        } catch (RuntimeException e) {
+            event.finish("error");
+            throw e;
+        }
+    }
+    
+    /**
+     * Get a user's revocation epoch, from the local cache when possible.
+     * @return Epoch (epoch millis), 0 if the user has none
+     */
+    private long getRevocationEpoch(String userId) {
+        Long cached = revocationEpochCache.get(userId);
+        if (cached != null) {
+            return cached;
+        }
+        
+        Long epoch = lookupRevocationEpoch(userId);
+        if (epoch != null) {
+            return epoch;
+        }
+        
+        // Store unavailable and no epoch known: apply the fallback policy
+        if (fallbackPolicy == FallbackPolicy.FAIL_CLOSED) {
+            System.out.println("[JWT] Token store unavailable and revocation epoch unknown - Rejecting token (fail-closed)");
+            return Long.MAX_VALUE;
+        }
+        return 0L;
+    }
+    
+    /**
+     * Read a user's revocation epoch from the token store and cache it,
+     * falling back to the last known epoch when the store is unavailable.
+     * @return Epoch (epoch millis), 0 if the user has none, or null if unknown
+     */
+    private Long lookupRevocationEpoch(String userId) {
+        Long epoch = callStore(() -> {
+            Long stored = tokenStore.getRevocationEpoch(userId);
+            revocationEpochCache.put(userId, stored != null ? stored : 0L);
+            return stored != null ? stored : 0L;
+        }, () -> null);
+        // The cache also holds epochs applied on this node but not yet stored
+        Long cached = revocationEpochCache.getStale(userId);
+        if (epoch == null || cached == null) {
+            return epoch != null ? epoch : cached;
+        }
+        return Math.max(epoch, cached);
+    }
+    
+    /**
+     * Call the token store, using the fallback if the shard owning the key fails or its circuit is open.
+     * Other errors, such as a full in-memory store rejecting a write, are not outages and propagate.
+     */
+    private static <T> T callStore(Supplier<T> call, Supplier<T> fallback) {
+        try {
+            return call.get();
+        } catch (DataAccessException e) {
+            return fallback.get();
+        }
+    }
+    
+    private static void runStore(Runnable call, Runnable fallback) {
+        try {
+            call.run();
+        } catch (DataAccessException e) {
+            fallback.run();
+        }
+    }
+    
+    /**
+     * Time to issue a token at: now, but never before the user's revocation epoch.
+     * JWT times have seconds precision, so the result is truncated to whole seconds
+     * and iat/exp in the payload match what was issued.
+     * @param epoch User's revocation epoch (epoch millis), or null if unknown
+     */
+    private static long issueTime(Long epoch) {
+        long now = System.currentTimeMillis() / 1000 * 1000;
+        if (epoch == null || epoch <= now) {
+            return now;
+        }
+        // Revoked within the current second: date the token at the epoch so it is not revoked with the rest
+        return (epoch + 999) / 1000 * 1000;
+    }
+    
+    /**
+     * Decide a blacklist check when the token store cannot be reached.
+     * The local snapshot has already been checked; under fail-closed, the token is rejected if the
+     * snapshot is stale, or if the shard holding its blacklist entry was not loaded recently.
+     */
+    private boolean isBlacklistedWhileStoreUnavailable(String token) {
+        long loadedAt = tokenStore.revocationsLoadedAt(token);
+        if (fallbackPolicy == FallbackPolicy.FAIL_CLOSED
+                && (revocationSnapshot.isStale(snapshotMaxStalenessMs)
+                        || System.currentTimeMillis() - loadedAt > snapshotMaxStalenessMs)) {
+            System.out.println("[JWT] Token store unavailable and revocation snapshot is stale - Treating token as blacklisted (fail-closed)");
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Build JWT payload from parsed Access Token claims.
+     * Accepts both token profiles; compact tokens leave email and name empty.
+     */
+    private JwtPayload toAccessTokenPayload(Claims claims) {
+        PayloadExtractionEvent event = PayloadExtractionEvent.start(ACCESS);
+        try {
+            JwtPayload.JwtPayloadBuilder payload = JwtPayload.builder()
+                    .sub(claims.getSubject())
+                    .iat(claims.getIssuedAt().getTime())
+                    .exp(claims.getExpiration().getTime());
+            
+            Object roleCode = claims.get(COMPACT_ROLE_CLAIM);
+            JwtPayload result = roleCode != null
+                    ? payload.role(decodeCompactRole(roleCode)).build()
+                    : payload
+                            .email(claims.get("email", String.class))
+                            .name(claims.get("name", String.class))
+                            .role(claims.get("role", String.class))
+                            .build();
+            event.finish("success");
+            return result;
+        } catch (RuntimeException e) {
+            event.finish("error");
+            throw e;
+        }
+    }
+    
+    /**
+     * Decode the compact role claim: a role code, or the role name for roles without a code.
+     */
+    private String decodeCompactRole(Object roleCode) {
+        if (roleCode instanceof Number number) {
+            int index = number.intValue();
+            if (index >= 0 && index < COMPACT_ROLE_CODES.size()) {
+                return COMPACT_ROLE_CODES.get(index);
+            }
+        }
+        return String.valueOf(roleCode);
+    }
+    
     /**
      * Get secret key for Access Token signing.
      */
@@ -0,0 +1,155 @@
+package com.dokalab.auth.service;
+
+import com.dokalab.auth.model.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.RuntimeMXBean;
+import java.util.Arrays;
+
+/**
+ * Startup warmup for the token paths.
+ * Runs synthetic sign/verify cycles through JwtService (and Jackson) so the JIT has
+ * compiled them before the pod takes traffic. Application runners complete before
+ * Spring Boot reports the readiness state ACCEPTING_TRAFFIC, so the readiness probe
+ * stays down until warmup is done. None of the cycles touch Redis.
+ * The cycle is a stand-in for a request, not a measurement of one: it skips HTTP,
+ * security and Redis, and its timings include JwtService's console logging.
+ * The token profile comparison times the parse alone, without logging.
+ */
+@Component
+@ConditionalOnProperty(name = "auth.warmup.enabled", havingValue = "true", matchIfMissing = true)
+public class JwtWarmup implements ApplicationRunner {
+
+    // A cycle counts as "fast" once it is within this factor of the steady-state cycle time
+    private static final double FAST_FACTOR = 2.0;
+    
+    private final JwtService jwtService;
+    private final ObjectMapper objectMapper;
+    private final ConfigurableApplicationContext context;
+    private final int iterations;
+    private final boolean exitAfterWarmup;
+    
+    @Autowired
+    public JwtWarmup(JwtService jwtService,
+                     ObjectMapper objectMapper,
+                     ConfigurableApplicationContext context,
+                     @Value("${auth.warmup.iterations:1000}") int iterations,
+                     @Value("${auth.warmup.exit-after-warmup:false}") boolean exitAfterWarmup) {
+        this.jwtService = jwtService;
+        this.objectMapper = objectMapper;
+        this.context = context;
+        this.iterations = Math.max(1, iterations);
+        this.exitAfterWarmup = exitAfterWarmup;
+    }
+    
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        RuntimeMXBean runtime = ManagementFactory.getRuntimeMXBean();
+        long uptimeAtStartMs = runtime.getUptime();
+        System.out.println("[WARMUP] Starting warmup - Cycles: " + iterations + ", JVM uptime: " + uptimeAtStartMs + " ms");
+        
+        User user = User.builder()
+                .id("warmup")
+                .email("warmup@example.com")
+                .name("Warmup User")
+                .role("user")
+                .build();
+        String credentialsJson = objectMapper.writeValueAsString(new LoginCredentials("warmup@example.com", "warmup"));
+        
+        long[] cycleNanos = new long[iterations];
+        long[] cycleEndNanos = new long[iterations];
+        long warmupStart = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            
+            objectMapper.readValue(credentialsJson, LoginCredentials.class);
+            String token = jwtService.generateAccessToken(user);
+            JwtPayload payload = jwtService.extractAccessTokenPayload(token);
+            objectMapper.writeValueAsString(AuthResponse.builder()
+                    .user(user)
+                    .tokens(AuthTokens.builder().accessToken(token).build())
+                    .build());
+            objectMapper.writeValueAsString(payload);
+            
+            long end = System.nanoTime();
+            cycleNanos[i] = end - start;
+            cycleEndNanos[i] = end - warmupStart;
+        }
+        
+        report(cycleNanos, cycleEndNanos, uptimeAtStartMs, runtime.getUptime());
+        reportTokenProfiles(user);
+        
+        if (exitAfterWarmup) {
+            // Training run for the AppCDS archive: the archive is written when the JVM exits
+            System.out.println("[WARMUP] Exiting after warmup");
+            System.exit(SpringApplication.exit(context, () -> 0));
+        }
+    }
+    
+    /**
+     * Compare token size and verify time of the standard and compact profiles.
+     * Runs after warmup, so both profiles are measured on compiled code.
+     */
+    private void reportTokenProfiles(User user) {
+        String standardToken = jwtService.generateAccessToken(user, TokenProfile.STANDARD);
+        String compactToken = jwtService.generateAccessToken(user, TokenProfile.COMPACT);
+        long standardNanos = measureVerify(standardToken);
+        long compactNanos = measureVerify(compactToken);
+        
+        long savedPercent = 100L * (standardToken.length() - compactToken.length()) / standardToken.length();
+        System.out.println("[WARMUP] Token profile STANDARD - Size: " + standardToken.length() + " bytes, Parse: " + standardNanos / 1_000 + " us");
+        System.out.println("[WARMUP] Token profile COMPACT - Size: " + compactToken.length() + " bytes, Parse: " + compactNanos / 1_000 + " us");
+        System.out.println("[WARMUP] Compact profile saves " + savedPercent + "% per token, parse speedup: "
+                + String.format("%.2f", (double) standardNanos / Math.max(1, compactNanos)) + "x");
+    }
+    
+    /**
+     * Measure the median parse time for a token, without JwtService's console logging.
+     */
+    private long measureVerify(String token) {
+        int rounds = Math.min(iterations, 500);
+        long[] nanos = new long[rounds];
+        for (int i = 0; i < rounds; i++) {
+            long start = System.nanoTime();
+            jwtService.decodeAccessToken(token);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos[rounds / 2];
+    }
+    
+    /**
+     * Report warmup timings, including when cycles first became fast.
+     */
+    private void report(long[] cycleNanos, long[] cycleEndNanos, long uptimeAtStartMs, long uptimeAtEndMs) {
+        // Steady state: median of the last 10% of cycles
+        int tail = Math.max(1, cycleNanos.length / 10);
+        long[] steadySample = Arrays.copyOfRange(cycleNanos, cycleNanos.length - tail, cycleNanos.length);
+        Arrays.sort(steadySample);
+        long steadyNanos = steadySample[steadySample.length / 2];
+        
+        int firstFast = cycleNanos.length - 1;
+        for (int i = 0; i < cycleNanos.length; i++) {
+            if (cycleNanos[i] <= steadyNanos * FAST_FACTOR) {
+                firstFast = i;
+                break;
+            }
+        }
+        long firstFastUptimeMs = uptimeAtStartMs + cycleEndNanos[firstFast] / 1_000_000;
+        
+        System.out.println("[WARMUP] Warmup complete - Duration: " + (uptimeAtEndMs - uptimeAtStartMs) + " ms");
+        // Synthetic cycle timings (no HTTP, security or Redis; includes console logging), not request latency
+        System.out.println("[WARMUP] Synthetic cycle - First: " + cycleNanos[0] / 1_000 + " us, Steady state: " + steadyNanos / 1_000 + " us (stand-in, includes logging)");
+        System.out.println("[WARMUP] Time to first fast synthetic cycle: cycle #" + (firstFast + 1) + ", " + firstFastUptimeMs + " ms after JVM start");
+        System.out.println("[WARMUP] Ready to accept traffic - JVM uptime: " + uptimeAtEndMs + " ms");
+    }
+}
@@ -0,0 +1,237 @@
+package com.dokalab.auth.service;
+
+import com.dokalab.auth.model.AuthTokens;
+import com.dokalab.auth.store.TokenStore;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight coalescing of refresh token rotations.
+ * Concurrent refresh calls with the same token share one rotation and all receive
+ * the same new token pair. Calls on one node join an in-flight future; across nodes,
+ * the rotation is claimed in the token store (SET NX) and the winner publishes the
+ * result there for the others to pick up. The result is kept for a short grace window,
+ * so duplicates arriving just after the rotation get it too instead of a 401.
+ * While the token store is unavailable, calls are only coalesced on each node.
+ */
+@Component
+public class RefreshSingleFlight {
+
+    private record CompletedRotation(AuthTokens tokens, long expiresAt) {
+    }
+    
+    // How often a caller waiting on another node checks for the result
+    private static final long POLL_INTERVAL_MS = 20;
+    
+    private final Map<String, CompletableFuture<AuthTokens>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, CompletedRotation> recent = new ConcurrentHashMap<>();
+    private final TokenStore tokenStore;
+    private final ObjectMapper objectMapper;
+    private final long graceWindowMs;
+    private final long rotationLockMs;
+    
+    @Autowired
+    public RefreshSingleFlight(TokenStore tokenStore,
+                               ObjectMapper objectMapper,
+                               @Value("${auth.refresh.grace-window-ms:10000}") long graceWindowMs,
+                               @Value("${auth.refresh.rotation-lock-ms:5000}") long rotationLockMs) {
+        this.tokenStore = tokenStore;
+        this.objectMapper = objectMapper;
+        this.graceWindowMs = graceWindowMs;
+        this.rotationLockMs = rotationLockMs;
+    }
+    
+    /**
+     * Rotate a refresh token, or join a rotation already running or just finished for it.
+     * @param refreshToken Refresh Token being rotated
+     * @param rotation Rotation to run if no other caller is running it
+     * @return New token pair
+     */
+    public AuthTokens execute(String refreshToken, Supplier<AuthTokens> rotation) {
+        AuthTokens completed = getRecent(refreshToken);
+        if (completed != null) {
+            System.out.println("[SERVICE] Token refresh served from grace window");
+            return completed;
+        }
+        
+        CompletableFuture<AuthTokens> own = new CompletableFuture<>();
+        CompletableFuture<AuthTokens> running = inFlight.putIfAbsent(refreshToken, own);
+        if (running != null) {
+            System.out.println("[SERVICE] Token refresh joined in-flight rotation");
+            return await(running);
+        }
+        
+        try {
+            // A rotation may have finished between the grace window check and claiming the token
+            AuthTokens tokens = getRecent(refreshToken);
+            if (tokens == null) {
+                tokens = rotateOnce(rotationId(refreshToken), rotation);
+                recent.put(refreshToken, new CompletedRotation(tokens, System.currentTimeMillis() + graceWindowMs));
+            }
+            own.complete(tokens);
+            return tokens;
+        } catch (RuntimeException e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(refreshToken, own);
+        }
+    }
+    
+    /**
+     * Drop rotations whose grace window has passed.
+     */
+    @Scheduled(fixedDelayString = "${auth.refresh.grace-window-ms:10000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        recent.values().removeIf(rotation -> rotation.expiresAt() <= now);
+    }
+    
+    /**
+     * Run the rotation if this node wins the claim in the token store,
+     * otherwise wait for the result published by the node that did.
+     */
+    private AuthTokens rotateOnce(String rotationId, Supplier<AuthTokens> rotation) {
+        long deadline = System.currentTimeMillis() + rotationLockMs;
+        while (true) {
+            AuthTokens shared = getSharedResult(rotationId);
+            if (shared != null) {
+                System.out.println("[SERVICE] Token refresh joined rotation from another node");
+                return shared;
+            }
+            
+            Boolean claimed = callStore(() -> tokenStore.claimRotation(rotationId, rotationLockMs));
+            if (claimed == null) {
+                System.out.println("[SERVICE] Token store unavailable - Refresh coalesced on this node only");
+                return rotation.get();
+            }
+            if (claimed) {
+                return rotateAndPublish(rotationId, rotation);
+            }
+            
+            // Another node holds the claim; a failed rotation releases it, so retry until the deadline
+            if (System.currentTimeMillis() >= deadline) {
+                System.out.println("[SERVICE] Token refresh failed - Rotation on another node did not finish in time");
+                throw new RuntimeException("Refresh token rotation timed out");
+            }
+            sleep();
+        }
+    }
+    
+    private AuthTokens rotateAndPublish(String rotationId, Supplier<AuthTokens> rotation) {
+        AuthTokens tokens;
+        try {
+            tokens = rotation.get();
+        } catch (RuntimeException e) {
+            callStore(() -> {
+                tokenStore.releaseRotation(rotationId);
+                return true;
+            });
+            throw e;
+        }
+        
+        String result = serialize(tokens);
+        Boolean published;
+        try {
+            published = callStore(() -> {
+                tokenStore.saveRotationResult(rotationId, result, graceWindowMs);
+                return true;
+            });
+        } catch (IllegalStateException e) {
+            // The new pair is already stored: hand it out even if duplicates cannot pick it up
+            System.out.println("[SERVICE] Rotation result not shared - Reason: " + e.getMessage());
+            return tokens;
+        }
+        if (published == null) {
+            System.out.println("[SERVICE] Token store unavailable - Rotation result not shared with other nodes");
+        }
+        return tokens;
+    }
+    
+    private AuthTokens getSharedResult(String rotationId) {
+        String result = callStore(() -> tokenStore.getRotationResult(rotationId));
+        if (result == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(result, AuthTokens.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable rotation result", e);
+        }
+    }
+    
+    /**
+     * Call the token store, returning null if the shard owning the key is unavailable.
+     * Other errors, such as a full in-memory store, propagate and fail the refresh.
+     */
+    private static <T> T callStore(Supplier<T> call) {
+        try {
+            return call.get();
+        } catch (DataAccessException e) {
+            return null;
+        }
+    }
+    
+    private String serialize(AuthTokens tokens) {
+        try {
+            return objectMapper.writeValueAsString(tokens);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize rotation result", e);
+        }
+    }
+    
+    private AuthTokens getRecent(String refreshToken) {
+        CompletedRotation rotation = recent.get(refreshToken);
+        if (rotation == null || rotation.expiresAt() <= System.currentTimeMillis()) {
+            return null;
+        }
+        return rotation.tokens();
+    }
+    
+    private AuthTokens await(CompletableFuture<AuthTokens> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+    
+    private static void sleep() {
+        try {
+            Thread.sleep(POLL_INTERVAL_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for refresh token rotation", e);
+        }
+    }
+    
+    /**
+     * Store key for a rotation; hashed so refresh tokens do not appear in key names.
+     */
+    private static String rotationId(String refreshToken) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(refreshToken.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.dokalab.auth.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local cache of per-user revocation epochs.
+ * An epoch is a not-before time: tokens issued earlier are rejected. Entries are
+ * updated through pub/sub when another node revokes a user, and expire after a
+ * short TTL as a safety net for missed messages. Users without an epoch are
+ * cached with epoch 0 so the common case never reaches Redis.
+ * The cache is bounded by evicting the least recently used entry. Epochs written on
+ * this node while Redis was unreachable are held separately and never evicted
+ * until they have been stored.
+ */
+@Component
+public class RevocationEpochCache {
+
+    private record CachedEpoch(long epoch, long cachedAt) {
+    }
+    
+    // Access-ordered, so the eldest entry is the least recently used
+    private final Map<String, CachedEpoch> entries;
+    
+    // User ID -> epoch applied on this node but not yet stored
+    private final Map<String, Long> unsaved = new ConcurrentHashMap<>();
+    private final long ttlMs;
+    
+    public RevocationEpochCache(@Value("${auth.revocation.epoch-cache-ttl-ms:60000}") long ttlMs,
+                                @Value("${auth.revocation.epoch-cache-max-entries:100000}") int maxEntries) {
+        this.ttlMs = ttlMs;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedEpoch> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+    
+    /**
+     * Get a cached epoch that is still within its TTL.
+     * @param userId User ID
+     * @return Epoch (epoch millis), or null if not cached or expired
+     */
+    public Long get(String userId) {
+        CachedEpoch cached;
+        synchronized (entries) {
+            cached = entries.get(userId);
+        }
+        if (cached == null || System.currentTimeMillis() - cached.cachedAt() > ttlMs) {
+            return null;
+        }
+        return withUnsaved(userId, cached.epoch());
+    }
+    
+    /**
+     * Get a cached epoch regardless of its age.
+     * Used when Redis cannot be reached.
+     * @param userId User ID
+     * @return Epoch (epoch millis), or null if never cached
+     */
+    public Long getStale(String userId) {
+        CachedEpoch cached;
+        synchronized (entries) {
+            cached = entries.get(userId);
+        }
+        if (cached == null) {
+            return unsaved.get(userId);
+        }
+        return withUnsaved(userId, cached.epoch());
+    }
+    
+    /**
+     * Cache an epoch. Epochs only move forward, so an older value never replaces a newer one.
+     * @param userId User ID
+     * @param epoch Epoch (epoch millis), 0 if the user has none
+     */
+    public void put(String userId, long epoch) {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            entries.merge(userId, new CachedEpoch(epoch, now),
+                    (current, updated) -> new CachedEpoch(Math.max(current.epoch(), updated.epoch()), now));
+        }
+    }
+    
+    /**
+     * Cache an epoch that could not be stored, and keep it until it is.
+     * @param userId User ID
+     * @param epoch Epoch (epoch millis)
+     */
+    public void putUnsaved(String userId, long epoch) {
+        put(userId, epoch);
+        unsaved.merge(userId, epoch, Math::max);
+    }
+    
+    /**
+     * Get the epochs still waiting to be stored.
+     * @return User ID -> epoch (epoch millis)
+     */
+    public Map<String, Long> getUnsaved() {
+        return Map.copyOf(unsaved);
+    }
+    
+    /**
+     * Release an epoch once it has been stored; a newer unsaved epoch is kept.
+     * @param userId User ID
+     * @param epoch Epoch that was stored
+     */
+    public void markSaved(String userId, long epoch) {
+        unsaved.remove(userId, epoch);
+    }
+    
+    /**
+     * Apply an epoch change published by another node.
+     * @param message Message in the form "userId:epoch"
+     */
+    public void onEpochMessage(String message) {
+        int separator = message.lastIndexOf(':');
+        if (separator <= 0) {
+            System.out.println("[JWT] Ignoring malformed revocation epoch message: " + message);
+            return;
+        }
+        try {
+            put(message.substring(0, separator), Long.parseLong(message.substring(separator + 1)));
+        } catch (NumberFormatException e) {
+            System.out.println("[JWT] Ignoring malformed revocation epoch message: " + message);
+        }
+    }
+    
+    private long withUnsaved(String userId, long epoch) {
+        Long local = unsaved.get(userId);
+        return local != null ? Math.max(epoch, local) : epoch;
+    }
+}
@@ -0,0 +1,92 @@
+package com.dokalab.auth.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local copy of recently blacklisted tokens.
+ * Refreshed periodically from Redis and used to answer blacklist checks
+ * while the Redis circuit is open. The number of entries loaded from Redis is capped;
+ * if entries had to be skipped, the snapshot reports itself stale until they would
+ * all have expired, so fail-closed does not trust an incomplete copy.
+ */
+@Component
+public class RevocationSnapshot {
+
+    // Token -> expiration time (epoch millis)
+    private final Map<String, Long> entries = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    private volatile long refreshedAt;
+    private volatile long incompleteUntil; // Latest expiration time of a skipped entry
+    
+    @Autowired
+    public RevocationSnapshot(@Value("${auth.redis.snapshot.max-entries:100000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+    
+    /**
+     * Record a token blacklisted on this node.
+     * Always kept, even above the cap, since Redis may not have it.
+     * @param token Blacklisted token
+     * @param expiresAt Token expiration time (epoch millis)
+     */
+    public void add(String token, long expiresAt) {
+        entries.put(token, expiresAt);
+    }
+    
+    /**
+     * Check if a token is in the snapshot and not yet expired.
+     * @param token Token to check
+     * @return true if blacklisted, false otherwise
+     */
+    public boolean contains(String token) {
+        Long expiresAt = entries.get(token);
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+    
+    /**
+     * Drop expired entries and merge entries loaded from Redis, up to the size cap.
+     * Local entries are kept, since they may have been added while Redis was unreachable.
+     * @param recent Token -> expiration time (epoch millis)
+     */
+    public void refresh(Map<String, Long> recent) {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(expiresAt -> expiresAt <= now);
+        
+        int skipped = 0;
+        for (Map.Entry<String, Long> entry : recent.entrySet()) {
+            if (entries.size() >= maxEntries && !entries.containsKey(entry.getKey())) {
+                skipped++;
+                incompleteUntil = Math.max(incompleteUntil, entry.getValue());
+                continue;
+            }
+            entries.put(entry.getKey(), entry.getValue());
+        }
+        if (skipped > 0) {
+            System.out.println("[JWT] Revocation snapshot size limit reached - Skipped: " + skipped + ", Entries: " + entries.size());
+        }
+        refreshedAt = now;
+    }
+    
+    /**
+     * Check if the snapshot has not been refreshed within the given age,
+     * or is missing entries that have not expired yet.
+     * @param maxAgeMs Maximum acceptable age in milliseconds
+     * @return true if stale, false otherwise
+     */
+    public boolean isStale(long maxAgeMs) {
+        long now = System.currentTimeMillis();
+        return now - refreshedAt > maxAgeMs || now < incompleteUntil;
+    }
+    
+    /**
+     * Get the number of entries in the snapshot.
+     */
+    public int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,248 @@
+package com.dokalab.auth.service;
+
+import com.dokalab.auth.store.KeySample;
+import com.dokalab.auth.store.KeySpace;
+import com.dokalab.auth.store.TokenStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Estimates refresh session and blacklist counts, TTL distribution and memory use
+ * by sampling the token store. Keys are walked in small batches with a pause between
+ * batches, and sampling stops at a key limit, so the store is never blocked.
+ * When a key space is only partly sampled, counts and memory are scaled up by
+ * (key space size / sampled keys); histograms describe the sample itself.
+ */
+@Service
+public class TokenStoreIntrospector {
+    
+    private static final String OTHER = "other";
+    
+    // Bounds on request parameters, so one request cannot flood the store or hold it for long
+    private static final int MAX_SAMPLE_LIMIT = 100_000;
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final long MIN_PAUSE_MS = 5;
+    
+    private static final long[] TTL_BOUNDS_SECONDS = {15, 60, 300, 600, 3600, 86400};
+    private static final String[] TTL_LABELS = {"<15s", "<1m", "<5m", "<10m", "<1h", "<1d", ">=1d"};
+    private static final long[] MEMORY_BOUNDS_BYTES = {64, 128, 256, 512, 1024};
+    private static final String[] MEMORY_LABELS = {"<64B", "<128B", "<256B", "<512B", "<1KiB", ">=1KiB"};
+    
+    private final TokenStore tokenStore;
+    private final int defaultSampleLimit;
+    private final int defaultBatchSize;
+    private final long defaultPauseMs;
+    private final AtomicBoolean running = new AtomicBoolean();
+    
+    @Autowired
+    public TokenStoreIntrospector(TokenStore tokenStore,
+                                  @Value("${auth.introspection.sample-limit:10000}") int defaultSampleLimit,
+                                  @Value("${auth.introspection.batch-size:200}") int defaultBatchSize,
+                                  @Value("${auth.introspection.pause-ms:20}") long defaultPauseMs) {
+        this.tokenStore = tokenStore;
+        this.defaultSampleLimit = defaultSampleLimit;
+        this.defaultBatchSize = defaultBatchSize;
+        this.defaultPauseMs = defaultPauseMs;
+    }
+    
+    /**
+     * Check if an introspection is in progress.
+     */
+    public boolean isRunning() {
+        return running.get();
+    }
+    
+    /**
+     * Sample the token store and report progress and results as they are produced.
+     * Only one run walks the store at a time. Parameters are clamped to at most
+     * 100000 keys, batches of at most 1000 keys and pauses of at least 5 ms.
+     * @param sampleLimit Maximum keys to sample in total, null for the configured default
+     * @param batchSize Keys per batch, null for the configured default
+     * @param pauseMs Pause between batches in milliseconds, null for the configured default
+     * @param out Receives one record per progress step, key space and prefix summary
+     * @return false if another run was in progress and nothing was sampled
+     */
+    public boolean introspect(Integer sampleLimit, Integer batchSize, Long pauseMs, Consumer<Map<String, Object>> out) {
+        int limit = clamp(sampleLimit != null ? sampleLimit : defaultSampleLimit, MAX_SAMPLE_LIMIT);
+        int batch = clamp(batchSize != null ? batchSize : defaultBatchSize, MAX_BATCH_SIZE);
+        long pause = Math.max(MIN_PAUSE_MS, pauseMs != null ? pauseMs : defaultPauseMs);
+        
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            List<KeySpace> keySpaces = tokenStore.keySpaces();
+            int limitPerSpace = Math.max(batch, limit / Math.max(1, keySpaces.size()));
+            Map<String, PrefixStats> totals = newStats();
+            
+            System.out.println("[INTROSPECT] Sampling " + keySpaces.size() + " key space(s), up to " + limitPerSpace + " keys each");
+            for (KeySpace keySpace : keySpaces) {
+                sampleKeySpace(keySpace, limitPerSpace, batch, pause, totals, out);
+                if (Thread.currentThread().isInterrupted()) {
+                    return true;
+                }
+            }
+            
+            for (Map.Entry<String, PrefixStats> entry : totals.entrySet()) {
+                Map<String, Object> record = entry.getValue().toMap();
+                record.put("type", "summary");
+                record.put("prefix", entry.getKey());
+                out.accept(record);
+            }
+            System.out.println("[INTROSPECT] Sampling completed");
+            return true;
+        } finally {
+            running.set(false);
+        }
+    }
+    
+    private static int clamp(int value, int max) {
+        return Math.min(max, Math.max(1, value));
+    }
+    
+    private void sampleKeySpace(KeySpace keySpace, int limit, int batchSize, long pauseMs,
+                                Map<String, PrefixStats> totals, Consumer<Map<String, Object>> out) {
+        long size = keySpace.size();
+        Map<String, PrefixStats> stats = newStats();
+        long[] sampled = {0};
+        
+        boolean complete = keySpace.scan(batchSize, samples -> {
+            for (KeySample sample : samples) {
+                stats.get(prefixOf(sample.key())).add(sample);
+            }
+            sampled[0] += samples.size();
+            
+            Map<String, Object> progress = new LinkedHashMap<>();
+            progress.put("type", "progress");
+            progress.put("keySpace", keySpace.getName());
+            progress.put("sampled", sampled[0]);
+            progress.put("size", size);
+            out.accept(progress);
+            
+            if (sampled[0] >= limit) {
+                return false;
+            }
+            return pause(pauseMs);
+        });
+        
+        double scale = complete || sampled[0] == 0 ? 1.0 : (double) size / sampled[0];
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("type", "keySpace");
+        record.put("keySpace", keySpace.getName());
+        record.put("size", size);
+        record.put("sampled", sampled[0]);
+        record.put("complete", complete);
+        for (Map.Entry<String, PrefixStats> entry : stats.entrySet()) {
+            record.put(entry.getKey(), Math.round(entry.getValue().count * scale));
+            totals.get(entry.getKey()).merge(entry.getValue(), scale);
+        }
+        out.accept(record);
+    }
+    
+    private static boolean pause(long pauseMs) {
+        if (pauseMs <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+    
+    private static String prefixOf(String key) {
+        if (key.startsWith(TokenStore.REFRESH_TOKEN_PREFIX)) {
+            return TokenStore.REFRESH_TOKEN_PREFIX;
+        }
+        if (key.startsWith(TokenStore.BLACKLIST_PREFIX)) {
+            return TokenStore.BLACKLIST_PREFIX;
+        }
+        return OTHER;
+    }
+    
+    private static Map<String, PrefixStats> newStats() {
+        Map<String, PrefixStats> stats = new LinkedHashMap<>();
+        stats.put(TokenStore.REFRESH_TOKEN_PREFIX, new PrefixStats());
+        stats.put(TokenStore.BLACKLIST_PREFIX, new PrefixStats());
+        stats.put(OTHER, new PrefixStats());
+        return stats;
+    }
+    
+    /**
+     * Sampled keys under one prefix, plus the scaled-up estimates across key spaces.
+     */
+    private static class PrefixStats {
+        long count;
+        long noExpiry;
+        long memoryBytes;
+        double estimatedCount;
+        double estimatedMemoryBytes;
+        final long[] ttlHistogram = new long[TTL_LABELS.length];
+        final long[] memoryHistogram = new long[MEMORY_LABELS.length];
+        
+        void add(KeySample sample) {
+            count++;
+            if (sample.ttlMs() < 0) {
+                noExpiry++;
+            } else {
+                ttlHistogram[bucket(sample.ttlMs() / 1000, TTL_BOUNDS_SECONDS)]++;
+            }
+            if (sample.memoryBytes() >= 0) {
+                memoryBytes += sample.memoryBytes();
+                memoryHistogram[bucket(sample.memoryBytes(), MEMORY_BOUNDS_BYTES)]++;
+            }
+        }
+        
+        void merge(PrefixStats other, double scale) {
+            count += other.count;
+            noExpiry += other.noExpiry;
+            memoryBytes += other.memoryBytes;
+            estimatedCount += other.count * scale;
+            estimatedMemoryBytes += other.memoryBytes * scale;
+            for (int i = 0; i < ttlHistogram.length; i++) {
+                ttlHistogram[i] += other.ttlHistogram[i];
+            }
+            for (int i = 0; i < memoryHistogram.length; i++) {
+                memoryHistogram[i] += other.memoryHistogram[i];
+            }
+        }
+        
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("sampled", count);
+            map.put("estimatedCount", Math.round(estimatedCount));
+            map.put("estimatedMemoryBytes", Math.round(estimatedMemoryBytes));
+            map.put("averageMemoryBytes", count > 0 ? memoryBytes / count : 0);
+            map.put("noExpiry", noExpiry);
+            map.put("ttlHistogram", histogram(TTL_LABELS, ttlHistogram));
+            map.put("memoryHistogram", histogram(MEMORY_LABELS, memoryHistogram));
+            return map;
+        }
+        
+        private static int bucket(long value, long[] bounds) {
+            for (int i = 0; i < bounds.length; i++) {
+                if (value < bounds[i]) {
+                    return i;
+                }
+            }
+            return bounds.length;
+        }
+        
+        private static Map<String, Long> histogram(String[] labels, long[] counts) {
+            Map<String, Long> histogram = new LinkedHashMap<>();
+            for (int i = 0; i < labels.length; i++) {
+                histogram.put(labels[i], counts[i]);
+            }
+            return histogram;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.dokalab.auth.store;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Consistent hash ring with virtual nodes.
+ * Each node is placed at many points on a 64-bit ring, and a key belongs to the
+ * first node point at or after the key's hash. Adding or removing a node only
+ * moves the keys between its points and their predecessors, about 1/N of all keys.
+ * Node positions depend only on node names, so every process builds the same ring.
+ */
+public class ConsistentHashRing<T> {
+
+    private final long[] points;
+    private final List<T> owners;
+    private final List<T> nodes;
+    
+    /**
+     * Build a ring.
+     * @param nodesByName Nodes keyed by a stable name (e.g. "host:port")
+     * @param virtualNodes Points per node
+     */
+    public ConsistentHashRing(Map<String, T> nodesByName, int virtualNodes) {
+        if (nodesByName.isEmpty()) {
+            throw new IllegalArgumentException("Consistent hash ring needs at least one node");
+        }
+        
+        int total = nodesByName.size() * virtualNodes;
+        long[][] placed = new long[total][];
+        List<T> nodeList = new ArrayList<>(nodesByName.values());
+        int index = 0;
+        int nodeIndex = 0;
+        for (String name : nodesByName.keySet()) {
+            for (int i = 0; i < virtualNodes; i++) {
+                placed[index++] = new long[] { hash(name + "#" + i), nodeIndex };
+            }
+            nodeIndex++;
+        }
+        Arrays.sort(placed, (a, b) -> Long.compare(a[0], b[0]));
+        
+        this.points = new long[total];
+        List<T> ownerList = new ArrayList<>(total);
+        for (int i = 0; i < total; i++) {
+            points[i] = placed[i][0];
+            ownerList.add(nodeList.get((int) placed[i][1]));
+        }
+        this.owners = ownerList;
+        this.nodes = Collections.unmodifiableList(nodeList);
+    }
+    
+    /**
+     * Get the node owning a key.
+     */
+    public T get(String key) {
+        int index = Arrays.binarySearch(points, hash(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners.get(index == points.length ? 0 : index);
+    }
+    
+    /**
+     * Get all nodes on the ring.
+     */
+    public List<T> getNodes() {
+        return nodes;
+    }
+    
+    /**
+     * Check if a node is on the ring.
+     */
+    public boolean contains(T node) {
+        return nodes.contains(node);
+    }
+    
+    /**
+     * 64-bit FNV-1a followed by the MurmurHash3 finalizer for better avalanche.
+     */
+    static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
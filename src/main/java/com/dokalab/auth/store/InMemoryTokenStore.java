@@ -0,0 +1,247 @@
+package com.dokalab.auth.store;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * In-process token store engine for single-node deployments and tests.
+ * Entries live in a concurrent map and expire through a hierarchical timing wheel
+ * driven by one ticker thread, so there are no per-entry timers or scans. Reads are
+ * lock-free and check the expiration time themselves; writes and expiry share one
+ * lock. When the store is full, the refresh sessions closest to expiry are evicted
+ * first. Blacklist entries and revocation epochs are never evicted: they are kept in
+ * their own wheel, and are admitted even above the limit, since dropping one would
+ * bring a revoked token back to life.
+ */
+@Component
+@ConditionalOnProperty(name = "auth.token-store.engine", havingValue = "memory")
+public class InMemoryTokenStore implements TokenStore {
+
+    private static final String BLACKLISTED = "blacklisted";
+    
+    // Rough per-entry overhead (map node, wheel entry, string headers) for introspection
+    private static final int ENTRY_OVERHEAD_BYTES = 160;
+    
+    private final Map<String, TimingWheel.Entry> entries = new ConcurrentHashMap<>();
+    private final Object lock = new Object();
+    private final TimingWheel revocationWheel; // Blacklist entries and revocation epochs
+    private final TimingWheel evictableWheel;  // Everything else
+    private final int maxEntries;
+    private final ScheduledExecutorService ticker;
+    
+    public InMemoryTokenStore(@Value("${auth.token-store.memory.max-entries:1000000}") int maxEntries,
+                              @Value("${auth.token-store.memory.tick-ms:1000}") long tickMs) {
+        this.maxEntries = maxEntries;
+        long now = System.currentTimeMillis();
+        this.revocationWheel = new TimingWheel(tickMs, now);
+        this.evictableWheel = new TimingWheel(tickMs, now);
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "token-store-ticker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::expireEntries, tickMs, tickMs, TimeUnit.MILLISECONDS);
+        System.out.println("[STORE] In-memory token store started - Max entries: " + maxEntries + ", Tick: " + tickMs + " ms");
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+    }
+    
+    @Override
+    public void saveRefreshToken(String userId, String token, long ttlSeconds) {
+        put(REFRESH_TOKEN_PREFIX + userId, token, System.currentTimeMillis() + ttlSeconds * 1000);
+    }
+    
+    @Override
+    public String getRefreshToken(String userId) {
+        return get(REFRESH_TOKEN_PREFIX + userId);
+    }
+    
+    @Override
+    public boolean deleteRefreshToken(String userId) {
+        return remove(REFRESH_TOKEN_PREFIX + userId);
+    }
+    
+    @Override
+    public void blacklistToken(String token, long expiresAt) {
+        put(BLACKLIST_PREFIX + token, BLACKLISTED, expiresAt);
+    }
+    
+    @Override
+    public boolean isBlacklisted(String token) {
+        return get(BLACKLIST_PREFIX + token) != null;
+    }
+    
+    @Override
+    public Map<String, Long> loadRecentRevocations(long now) {
+        // This store is the source of truth on this node; there is nothing to snapshot
+        return Map.of();
+    }
+    
+    @Override
+    public void saveRevocationEpoch(String userId, long epoch, long ttlSeconds) {
+        put(REVOCATION_EPOCH_PREFIX + userId, String.valueOf(epoch), System.currentTimeMillis() + ttlSeconds * 1000);
+    }
+    
+    @Override
+    public Long getRevocationEpoch(String userId) {
+        String stored = get(REVOCATION_EPOCH_PREFIX + userId);
+        return stored != null ? Long.parseLong(stored) : null;
+    }
+    
+    @Override
+    public boolean claimRotation(String rotationId, long ttlMs) {
+        String key = ROTATION_CLAIM_PREFIX + rotationId;
+        synchronized (lock) {
+            if (get(key) != null) {
+                return false;
+            }
+            put(key, "claimed", System.currentTimeMillis() + ttlMs);
+            return true;
+        }
+    }
+    
+    @Override
+    public void releaseRotation(String rotationId) {
+        remove(ROTATION_CLAIM_PREFIX + rotationId);
+    }
+    
+    @Override
+    public void saveRotationResult(String rotationId, String result, long ttlMs) {
+        put(ROTATION_RESULT_PREFIX + rotationId, result, System.currentTimeMillis() + ttlMs);
+    }
+    
+    @Override
+    public String getRotationResult(String rotationId) {
+        return get(ROTATION_RESULT_PREFIX + rotationId);
+    }
+    
+    @Override
+    public List<KeySpace> keySpaces() {
+        return List.of(new KeySpace() {
+            @Override
+            public String getName() {
+                return "memory";
+            }
+            
+            @Override
+            public long size() {
+                return entries.size();
+            }
+            
+            @Override
+            public boolean scan(int batchSize, Predicate<List<KeySample>> visitor) {
+                // Map iteration is weakly consistent and takes no locks
+                Iterator<TimingWheel.Entry> iterator = entries.values().iterator();
+                List<KeySample> batch = new ArrayList<>(batchSize);
+                while (iterator.hasNext()) {
+                    TimingWheel.Entry entry = iterator.next();
+                    long ttlMs = entry.expiresAt - System.currentTimeMillis();
+                    if (ttlMs <= 0) {
+                        continue;
+                    }
+                    long memoryBytes = ENTRY_OVERHEAD_BYTES + 2L * (entry.key.length() + entry.value.length());
+                    batch.add(new KeySample(entry.key, ttlMs, memoryBytes));
+                    if (batch.size() == batchSize) {
+                        if (!visitor.test(batch)) {
+                            return false;
+                        }
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    visitor.test(batch);
+                }
+                return true;
+            }
+        });
+    }
+    
+    /**
+     * Get the number of live entries.
+     */
+    public int size() {
+        return entries.size();
+    }
+    
+    private String get(String key) {
+        TimingWheel.Entry entry = entries.get(key);
+        if (entry == null || entry.expiresAt <= System.currentTimeMillis()) {
+            return null;
+        }
+        return entry.value;
+    }
+    
+    /**
+     * Store an entry, evicting refresh sessions if the store is full.
+     * @throws IllegalStateException if the store is full of revocation state and the entry is evictable
+     */
+    private void put(String key, String value, long expiresAt) {
+        TimingWheel wheel = wheelFor(key);
+        synchronized (lock) {
+            TimingWheel.Entry previous = entries.remove(key);
+            if (previous != null) {
+                wheel.cancel(previous);
+            }
+            
+            // Make room by evicting the evictable entries closest to expiry
+            while (entries.size() >= maxEntries) {
+                TimingWheel.Entry evicted = evictableWheel.pollEarliest();
+                if (evicted == null) {
+                    break;
+                }
+                entries.remove(evicted.key, evicted);
+            }
+            if (entries.size() >= maxEntries && wheel == evictableWheel) {
+                throw new IllegalStateException("Token store full of revocation entries - Rejected write: " + key.substring(0, key.indexOf(':') + 1));
+            }
+            
+            TimingWheel.Entry entry = wheel.newEntry(key, value, expiresAt);
+            if (wheel.schedule(entry)) {
+                entries.put(key, entry);
+            }
+        }
+    }
+    
+    private boolean remove(String key) {
+        synchronized (lock) {
+            TimingWheel.Entry entry = entries.remove(key);
+            if (entry == null) {
+                return false;
+            }
+            wheelFor(key).cancel(entry);
+            return entry.expiresAt > System.currentTimeMillis();
+        }
+    }
+    
+    private TimingWheel wheelFor(String key) {
+        return key.startsWith(BLACKLIST_PREFIX) || key.startsWith(REVOCATION_EPOCH_PREFIX) ? revocationWheel : evictableWheel;
+    }
+    
+    private void expireEntries() {
+        try {
+            long now = System.currentTimeMillis();
+            synchronized (lock) {
+                revocationWheel.advance(now, expired -> entries.remove(expired.key, expired));
+                evictableWheel.advance(now, expired -> entries.remove(expired.key, expired));
+            }
+        } catch (RuntimeException e) {
+            // Keep the ticker alive; a failed tick is retried on the next one
+            System.out.println("[STORE] Expiry tick failed - Reason: " + e.getMessage());
+        }
+    }
+}
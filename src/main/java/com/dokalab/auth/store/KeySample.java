@@ -0,0 +1,10 @@
+package com.dokalab.auth.store;
+
+/**
+ * One stored key seen during introspection.
+ * @param key Key name
+ * @param ttlMs Remaining time to live in milliseconds, -1 if the key never expires
+ * @param memoryBytes Memory used by the key and its value, -1 if unknown
+ */
+public record KeySample(String key, long ttlMs, long memoryBytes) {
+}
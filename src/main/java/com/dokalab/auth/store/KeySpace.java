@@ -0,0 +1,29 @@
+package com.dokalab.auth.store;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * A walkable set of stored keys (one Redis shard, or the in-process store).
+ * Used for introspection; walking must never block normal store operations for long.
+ */
+public interface KeySpace {
+
+    /**
+     * Get a name identifying this key space in reports.
+     */
+    String getName();
+    
+    /**
+     * Get the total number of keys, including keys that are not token keys.
+     */
+    long size();
+    
+    /**
+     * Walk keys in small batches.
+     * @param batchSize Keys per batch
+     * @param visitor Receives each batch; return false to stop early
+     * @return true if every key was visited, false if stopped early
+     */
+    boolean scan(int batchSize, Predicate<List<KeySample>> visitor);
+}
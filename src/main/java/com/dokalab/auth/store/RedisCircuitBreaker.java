@@ -0,0 +1,116 @@
+package com.dokalab.auth.store;
+
+import com.dokalab.auth.monitoring.RedisOperationEvent;
+import org.springframework.data.redis.RedisConnectionFailureException;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker around the calls to one Redis shard.
+ * After a run of consecutive failures the circuit opens and calls fail at once
+ * without touching Redis. Once the open period has passed, a single trial call is
+ * let through; success closes the circuit, failure reopens it. Each shard has its
+ * own breaker, so one failing node only affects the keys it owns.
+ */
+public class RedisCircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+    
+    private final String name;
+    private final int failureThreshold;
+    private final long openDurationMs;
+    
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicBoolean trialInFlight = new AtomicBoolean();
+    private volatile State state = State.CLOSED;
+    private volatile long openedAt;
+    
+    /**
+     * @param name Shard name used in logs and JFR events
+     * @param failureThreshold Consecutive failures that open the circuit
+     * @param openDurationMs How long the circuit stays open before a trial call
+     */
+    public RedisCircuitBreaker(String name, int failureThreshold, long openDurationMs) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openDurationMs = openDurationMs;
+    }
+    
+    /**
+     * Run a Redis call through the breaker.
+     * @param operation Operation name used in logs and JFR events
+     * @param call Redis call
+     * @return Call result
+     * @throws RedisConnectionFailureException if the circuit is open
+     */
+    public <T> T execute(String operation, Supplier<T> call) {
+        RedisOperationEvent event = RedisOperationEvent.start(name, operation);
+        if (!tryAcquire()) {
+            event.finish("short-circuited", state);
+            throw new RedisConnectionFailureException("Circuit open for Redis shard " + name);
+        }
+        try {
+            T result = call.get();
+            onSuccess();
+            event.finish("success", state);
+            return result;
+        } catch (RuntimeException e) {
+            onFailure(operation, e);
+            event.finish("error", state);
+            throw e;
+        }
+    }
+    
+    /**
+     * Get the current circuit state.
+     */
+    public State getState() {
+        return state;
+    }
+    
+    private boolean tryAcquire() {
+        State current = state;
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN && System.currentTimeMillis() - openedAt < openDurationMs) {
+            return false;
+        }
+        // Open period elapsed (or already half-open): let exactly one trial call through
+        if (trialInFlight.compareAndSet(false, true)) {
+            state = State.HALF_OPEN;
+            return true;
+        }
+        return false;
+    }
+    
+    private void onSuccess() {
+        consecutiveFailures.set(0);
+        if (state != State.CLOSED) {
+            state = State.CLOSED;
+            trialInFlight.set(false);
+            System.out.println("[REDIS] Circuit closed - Shard: " + name + " is reachable again");
+        }
+    }
+    
+    private void onFailure(String operation, RuntimeException e) {
+        int failures = consecutiveFailures.incrementAndGet();
+        if (state == State.HALF_OPEN || failures >= failureThreshold) {
+            boolean wasOpen = state == State.OPEN;
+            openedAt = System.currentTimeMillis();
+            state = State.OPEN;
+            trialInFlight.set(false);
+            if (!wasOpen) {
+                System.out.println("[REDIS] Circuit opened - Shard: " + name + ", Operation: " + operation + ", Consecutive failures: " + failures + ", Reason: " + e.getMessage());
+            }
+        } else {
+            System.out.println("[REDIS] Call failed - Shard: " + name + ", Operation: " + operation + ", Reason: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.dokalab.auth.store;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * One independent Redis node holding a share of the token keys.
+ * Every call goes through the shard's own circuit breaker and is timed per operation
+ * and outcome under the auth.redis.shard.latency metric.
+ */
+public class RedisShard {
+
+    private static final String LATENCY_METRIC = "auth.redis.shard.latency";
+    
+    private final String name;
+    private final LettuceConnectionFactory connectionFactory;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    
+    public RedisShard(String name, LettuceConnectionFactory connectionFactory, MeterRegistry meterRegistry, RedisCircuitBreaker circuitBreaker) {
+        this.name = name;
+        this.connectionFactory = connectionFactory;
+        this.meterRegistry = meterRegistry;
+        this.circuitBreaker = circuitBreaker;
+        
+        connectionFactory.afterPropertiesSet();
+        RedisTemplate<String, String> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(new StringRedisSerializer());
+        template.afterPropertiesSet();
+        this.redisTemplate = template;
+    }
+    
+    /**
+     * Run a call against this shard through its circuit breaker and record its latency.
+     * @param operation Operation name used as a metric tag
+     * @param call Redis call
+     * @return Call result
+     * @throws org.springframework.data.redis.RedisConnectionFailureException if the shard's circuit is open
+     */
+    public <T> T execute(String operation, Function<RedisTemplate<String, String>, T> call) {
+        return circuitBreaker.execute(operation, () -> {
+            long start = System.nanoTime();
+            try {
+                T result = call.apply(redisTemplate);
+                record(operation, "success", start);
+                return result;
+            } catch (RuntimeException e) {
+                record(operation, "error", start);
+                throw e;
+            }
+        });
+    }
+    
+    /**
+     * Ping this shard.
+     * @return Round-trip time in milliseconds
+     */
+    public long ping() {
+        long start = System.nanoTime();
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.ping();
+        }
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public RedisCircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+    
+    public LettuceConnectionFactory getConnectionFactory() {
+        return connectionFactory;
+    }
+    
+    /**
+     * Close this shard's connections.
+     */
+    public void destroy() {
+        connectionFactory.destroy();
+    }
+    
+    @Override
+    public String toString() {
+        return name;
+    }
+    
+    private void record(String operation, String outcome, long start) {
+        timers.computeIfAbsent(operation + ":" + outcome, key -> Timer.builder(LATENCY_METRIC)
+                        .tag("shard", name)
+                        .tag("operation", operation)
+                        .tag("outcome", outcome)
+                        .register(meterRegistry))
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,133 @@
+package com.dokalab.auth.store;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves token keys whose owner changed after nodes were added or removed.
+ * Runs in the background after startup when auth.redis.previous-nodes is set. Only
+ * keys whose owner differs between the previous and current ring are moved, which
+ * consistent hashing keeps to about 1/N of the keys. Keys are copied with SET NX, so
+ * values written to the new owner in the meantime win, and then deleted from the old
+ * owner. A copy whose source was deleted during the move is removed again, so a logout
+ * racing the migration is not undone. Running it on several instances at once is safe.
+ */
+@Component
+@ConditionalOnProperty(name = "auth.token-store.engine", havingValue = "redis", matchIfMissing = true)
+public class RedisShardMigrator {
+
+    private static final List<String> PREFIXES = List.of(
+            TokenStore.REFRESH_TOKEN_PREFIX,
+            TokenStore.BLACKLIST_PREFIX,
+            TokenStore.REVOCATION_EPOCH_PREFIX);
+    
+    // Delete a key only if it still holds the given value
+    static final RedisScript<Long> DELETE_IF_EQUAL = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) end return 0", Long.class);
+    
+    private final RedisShards shards;
+    private final int batchSize;
+    private final long pauseMs;
+    
+    @Autowired
+    public RedisShardMigrator(RedisShards shards,
+                              @Value("${auth.redis.migration.batch-size:500}") int batchSize,
+                              @Value("${auth.redis.migration.pause-ms:10}") long pauseMs) {
+        this.shards = shards;
+        this.batchSize = batchSize;
+        this.pauseMs = pauseMs;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void startMigration() {
+        if (!shards.isMigrating()) {
+            return;
+        }
+        Thread thread = new Thread(this::migrate, "redis-shard-migrator");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    private void migrate() {
+        System.out.println("[STORE] Starting shard migration - Previous: " + shards.getPreviousRing().getNodes() + ", Current: " + shards.getRing().getNodes());
+        long moved = 0;
+        try {
+            for (RedisShard source : shards.getPreviousRing().getNodes()) {
+                for (String prefix : PREFIXES) {
+                    moved += migratePrefix(source, prefix);
+                }
+            }
+            shards.finishMigration();
+            System.out.println("[STORE] Shard migration complete - Keys moved: " + moved);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.out.println("[STORE] Shard migration interrupted - Keys moved: " + moved);
+        } catch (RuntimeException e) {
+            // Previous owners stay readable; restarting the instance resumes the migration
+            System.out.println("[STORE] Shard migration failed - Keys moved: " + moved + ", Reason: " + e.getMessage());
+        }
+    }
+    
+    private long migratePrefix(RedisShard source, String prefix) throws InterruptedException {
+        ScanOptions options = ScanOptions.scanOptions().match(prefix + "*").count(batchSize).build();
+        long moved = 0;
+        long scanned = 0;
+        try (Cursor<String> cursor = source.execute("scan", redis -> redis.scan(options))) {
+            while (cursor.hasNext()) {
+                String key = cursor.next();
+                RedisShard target = shards.forKey(key);
+                if (target != source && migrateKey(source, target, key)) {
+                    moved++;
+                }
+                // Pause between batches so the migration never crowds out live traffic
+                if (++scanned % batchSize == 0 && pauseMs > 0) {
+                    Thread.sleep(pauseMs);
+                }
+            }
+        }
+        System.out.println("[STORE] Migrated prefix " + prefix + " from " + source.getName() + " - Scanned: " + scanned + ", Moved: " + moved);
+        return moved;
+    }
+    
+    /**
+     * Copy one key to its new owner and delete it from the old one.
+     * @return true if the key was moved, false if it expired or was deleted first
+     */
+    boolean migrateKey(RedisShard source, RedisShard target, String key) {
+        String value = source.execute("get", redis -> redis.opsForValue().get(key));
+        Long ttlMs = source.execute("pttl", redis -> redis.getExpire(key, TimeUnit.MILLISECONDS));
+        if (value == null || ttlMs == null || ttlMs == -2) {
+            return false; // Expired or deleted in the meantime
+        }
+        
+        Boolean copied = target.execute("migrate", redis -> ttlMs > 0
+                ? redis.opsForValue().setIfAbsent(key, value, ttlMs, TimeUnit.MILLISECONDS)
+                : redis.opsForValue().setIfAbsent(key, value));
+        // Deleted between the GET and the SET NX (e.g. a logout): drop the copy unless it was overwritten since.
+        // Deletes hit the old owner first, so a delete that missed the copy shows up here.
+        if (Boolean.TRUE.equals(copied) && !Boolean.TRUE.equals(source.execute("exists", redis -> redis.hasKey(key)))) {
+            target.execute("migrate", redis -> redis.execute(DELETE_IF_EQUAL, List.of(key), value));
+            return false;
+        }
+        if (key.startsWith(TokenStore.BLACKLIST_PREFIX) && ttlMs > 0) {
+            String token = key.substring(TokenStore.BLACKLIST_PREFIX.length());
+            long now = System.currentTimeMillis();
+            // Scored as new on the target so snapshots pick it up; the source entry ages out on its own
+            target.execute("migrate", redis -> redis.opsForZSet()
+                    .add(RedisTokenStore.RECENT_REVOCATIONS_KEY, RedisTokenStore.revocationMember(token, now + ttlMs), now));
+        }
+        source.execute("delete", redis -> redis.delete(key));
+        return true;
+    }
+}
@@ -0,0 +1,130 @@
+package com.dokalab.auth.store;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The set of Redis shards and the consistent hash ring routing keys to them.
+ * While resharding, the previous ring is kept so reads can fall back to a key's
+ * previous owner until the migration has moved it.
+ */
+public class RedisShards implements SmartLifecycle, DisposableBean {
+
+    private final ConsistentHashRing<RedisShard> ring;
+    private final ConsistentHashRing<RedisShard> previousRing;
+    private final List<RedisShard> allShards;
+    private final List<RedisMessageListenerContainer> containers = new ArrayList<>();
+    private volatile boolean migrating;
+    private volatile boolean running;
+    
+    /**
+     * @param ring Ring of the current nodes
+     * @param previousRing Ring of the nodes before resharding, or null if not resharding
+     * @param allShards Every shard on either ring
+     */
+    public RedisShards(ConsistentHashRing<RedisShard> ring, ConsistentHashRing<RedisShard> previousRing, List<RedisShard> allShards) {
+        this.ring = ring;
+        this.previousRing = previousRing;
+        this.allShards = List.copyOf(allShards);
+        this.migrating = previousRing != null;
+    }
+    
+    /**
+     * Get the shard owning a key.
+     */
+    public RedisShard forKey(String key) {
+        return ring.get(key);
+    }
+    
+    /**
+     * Get the shard that owned a key before resharding, if it differs from the current owner.
+     * @return Previous owner, or null if not migrating or the owner did not change
+     */
+    public RedisShard previousOwner(String key) {
+        if (!migrating) {
+            return null;
+        }
+        RedisShard previous = previousRing.get(key);
+        return previous != ring.get(key) ? previous : null;
+    }
+    
+    public boolean isMigrating() {
+        return migrating;
+    }
+    
+    /**
+     * Stop falling back to previous owners once every key has been moved.
+     */
+    public void finishMigration() {
+        migrating = false;
+    }
+    
+    public ConsistentHashRing<RedisShard> getRing() {
+        return ring;
+    }
+    
+    public ConsistentHashRing<RedisShard> getPreviousRing() {
+        return previousRing;
+    }
+    
+    /**
+     * Get every shard on either ring.
+     */
+    public List<RedisShard> getAllShards() {
+        return allShards;
+    }
+    
+    /**
+     * Subscribe to a pub/sub channel on every shard.
+     * Publishers use the shard owning the related key, so listeners must cover all of them.
+     * @param channel Channel name
+     * @param listener Called with each message body
+     */
+    public void subscribe(String channel, Consumer<String> listener) {
+        for (RedisShard shard : allShards) {
+            RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+            container.setConnectionFactory(shard.getConnectionFactory());
+            container.addMessageListener(
+                    (message, pattern) -> listener.accept(new String(message.getBody(), StandardCharsets.UTF_8)),
+                    new ChannelTopic(channel));
+            containers.add(container);
+        }
+    }
+    
+    @Override
+    public void start() {
+        for (RedisMessageListenerContainer container : containers) {
+            container.afterPropertiesSet();
+            container.start();
+        }
+        running = true;
+    }
+    
+    @Override
+    public void stop() {
+        for (RedisMessageListenerContainer container : containers) {
+            container.stop();
+        }
+        running = false;
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+    
+    @Override
+    public void destroy() throws Exception {
+        for (RedisMessageListenerContainer container : containers) {
+            container.destroy();
+        }
+        allShards.forEach(RedisShard::destroy);
+    }
+}
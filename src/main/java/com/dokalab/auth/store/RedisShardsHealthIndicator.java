@@ -0,0 +1,48 @@
+package com.dokalab.auth.store;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Health of each Redis shard, with ping latency.
+ * Reported DOWN when any shard is unreachable, since its share of the keys is unavailable.
+ */
+@Component
+@ConditionalOnProperty(name = "auth.token-store.engine", havingValue = "redis", matchIfMissing = true)
+public class RedisShardsHealthIndicator implements HealthIndicator {
+
+    private final RedisShards shards;
+    
+    @Autowired
+    public RedisShardsHealthIndicator(RedisShards shards) {
+        this.shards = shards;
+    }
+    
+    @Override
+    public Health health() {
+        boolean allUp = true;
+        Map<String, Object> details = new LinkedHashMap<>();
+        for (RedisShard shard : shards.getAllShards()) {
+            Map<String, Object> shardDetails = new LinkedHashMap<>();
+            try {
+                shardDetails.put("status", "UP");
+                shardDetails.put("latencyMs", shard.ping());
+            } catch (RuntimeException e) {
+                allUp = false;
+                shardDetails.put("status", "DOWN");
+                shardDetails.put("error", e.getMessage());
+            }
+            shardDetails.put("circuit", shard.getCircuitState().name());
+            shardDetails.put("inRing", shards.getRing().contains(shard));
+            details.put(shard.getName(), shardDetails);
+        }
+        details.put("migrating", shards.isMigrating());
+        return (allUp ? Health.up() : Health.down()).withDetails(details).build();
+    }
+}
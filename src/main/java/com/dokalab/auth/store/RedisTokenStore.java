@@ -0,0 +1,332 @@
+package com.dokalab.auth.store;
+
+import com.dokalab.auth.model.JwtConstants;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Redis token store engine.
+ * Keys are spread over independent Redis nodes by consistent hashing (see RedisShards);
+ * with a single node this behaves like a plain Redis store. Revocation epoch changes
+ * are announced over pub/sub on the shard owning the epoch key.
+ */
+@Component
+@ConditionalOnProperty(name = "auth.token-store.engine", havingValue = "redis", matchIfMissing = true)
+public class RedisTokenStore implements TokenStore {
+
+    // Pub/sub channel announcing revocation epoch changes ("userId:epoch")
+    public static final String REVOCATION_EPOCH_CHANNEL = "revocations:epochs";
+    
+    // Per-shard sorted set of the shard's blacklisted tokens ("expiresAt:token") scored by
+    // the time they were added, so the local snapshot can load only new entries
+    public static final String RECENT_REVOCATIONS_KEY = "revocations:recent";
+    
+    // Only access tokens are blacklisted, so entries older than their lifetime describe expired tokens
+    private static final long REVOCATION_RETENTION_MS = JwtConstants.ACCESS_TOKEN_EXPIRY * 1000L;
+    
+    // Re-read this far behind the current time, for entries written by nodes whose
+    // clocks lag behind or whose writes were still in flight
+    private static final long CLOCK_SKEW_ALLOWANCE_MS = 10_000;
+    
+    private final RedisShards shards;
+    private final int snapshotBatchSize;
+    
+    // Shard name -> insertion time to load revocations from on the next snapshot refresh
+    private final Map<String, Long> snapshotCursors = new ConcurrentHashMap<>();
+    
+    // Shard name -> time of the last snapshot refresh that read all of the shard's new revocations
+    private final Map<String, Long> snapshotLoadedAt = new ConcurrentHashMap<>();
+    
+    @Autowired
+    public RedisTokenStore(RedisShards shards,
+                           @Value("${auth.redis.snapshot.batch-size:5000}") int snapshotBatchSize) {
+        this.shards = shards;
+        this.snapshotBatchSize = Math.max(1, snapshotBatchSize);
+    }
+    
+    @Override
+    public void saveRefreshToken(String userId, String token, long ttlSeconds) {
+        String key = REFRESH_TOKEN_PREFIX + userId;
+        shards.forKey(key).execute("set", redis -> {
+            redis.opsForValue().set(key, token, ttlSeconds, TimeUnit.SECONDS);
+            return null;
+        });
+    }
+    
+    @Override
+    public String getRefreshToken(String userId) {
+        return getValue(REFRESH_TOKEN_PREFIX + userId);
+    }
+    
+    @Override
+    public boolean deleteRefreshToken(String userId) {
+        String key = REFRESH_TOKEN_PREFIX + userId;
+        
+        // Also delete from the previous owner, or the migration would bring the key back.
+        // The previous owner goes first: the migrator checks it after copying and drops the copy if it is gone.
+        boolean deleted = false;
+        RedisShard previous = shards.previousOwner(key);
+        if (previous != null) {
+            deleted = Boolean.TRUE.equals(previous.execute("delete", redis -> redis.delete(key)));
+        }
+        deleted |= Boolean.TRUE.equals(shards.forKey(key).execute("delete", redis -> redis.delete(key)));
+        return deleted;
+    }
+    
+    @Override
+    public void blacklistToken(String token, long expiresAt) {
+        long ttlMs = expiresAt - System.currentTimeMillis();
+        if (ttlMs <= 0) {
+            return;
+        }
+        String key = BLACKLIST_PREFIX + token;
+        shards.forKey(key).execute("blacklist", redis -> {
+            redis.opsForValue().set(key, "blacklisted", ttlMs, TimeUnit.MILLISECONDS);
+            redis.opsForZSet().add(RECENT_REVOCATIONS_KEY, revocationMember(token, expiresAt), System.currentTimeMillis());
+            return null;
+        });
+    }
+    
+    @Override
+    public boolean isBlacklisted(String token) {
+        String key = BLACKLIST_PREFIX + token;
+        if (Boolean.TRUE.equals(shards.forKey(key).execute("exists", redis -> redis.hasKey(key)))) {
+            return true;
+        }
+        RedisShard previous = shards.previousOwner(key);
+        return previous != null && Boolean.TRUE.equals(previous.execute("exists", redis -> redis.hasKey(key)));
+    }
+    
+    /**
+     * Shards that cannot be read are skipped and retried from the same point next time,
+     * so one unavailable node does not hold back revocations from the others.
+     * A skipped shard's load time is not moved (see revocationsLoadedAt).
+     * Fails only if no shard could be read.
+     */
+    @Override
+    public Map<String, Long> loadRecentRevocations(long now) {
+        Map<String, Long> entries = new HashMap<>();
+        Map<String, Long> nextCursors = new HashMap<>();
+        Map<String, Long> caughtUp = new HashMap<>();
+        RuntimeException failure = null;
+        for (RedisShard shard : shards.getAllShards()) {
+            long since = snapshotCursors.getOrDefault(shard.getName(), 0L);
+            // Trim entries too old to matter on the way, then read at most one batch of new ones
+            Set<ZSetOperations.TypedTuple<String>> recent;
+            try {
+                recent = shard.execute("snapshot", redis -> {
+                    redis.opsForZSet().removeRangeByScore(RECENT_REVOCATIONS_KEY, 0, now - REVOCATION_RETENTION_MS);
+                    return redis.opsForZSet().rangeByScoreWithScores(RECENT_REVOCATIONS_KEY, since, Double.POSITIVE_INFINITY, 0, snapshotBatchSize);
+                });
+            } catch (RuntimeException e) {
+                System.out.println("[STORE] Revocation snapshot skipped shard " + shard.getName() + " - Reason: " + e.getMessage());
+                failure = e;
+                continue;
+            }
+            long lastAddedAt = since;
+            if (recent != null) {
+                for (ZSetOperations.TypedTuple<String> entry : recent) {
+                    if (entry.getValue() == null || entry.getScore() == null) {
+                        continue;
+                    }
+                    lastAddedAt = Math.max(lastAddedAt, entry.getScore().longValue());
+                    int separator = entry.getValue().indexOf(':');
+                    long expiresAt = Long.parseLong(entry.getValue().substring(0, separator));
+                    if (expiresAt > now) {
+                        entries.put(entry.getValue().substring(separator + 1), expiresAt);
+                    }
+                }
+            }
+            // A full batch means more entries are waiting: continue after the last one next time.
+            // Otherwise everything up to now has been seen, less the clock skew allowance.
+            boolean truncated = recent != null && recent.size() >= snapshotBatchSize;
+            nextCursors.put(shard.getName(), truncated
+                    ? Math.max(lastAddedAt, since + 1)
+                    : Math.max(since, now - CLOCK_SKEW_ALLOWANCE_MS));
+            if (!truncated) {
+                caughtUp.put(shard.getName(), now);
+            }
+        }
+        if (nextCursors.isEmpty() && failure != null) {
+            throw failure;
+        }
+        // Only move the cursors of shards that were read, so a failed shard reloads the same range
+        snapshotCursors.putAll(nextCursors);
+        snapshotLoadedAt.putAll(caughtUp);
+        return entries;
+    }
+    
+    /**
+     * A token's blacklist entry may still be on its previous owner during a migration,
+     * so the older of the two shards' load times counts.
+     */
+    @Override
+    public long revocationsLoadedAt(String token) {
+        String key = BLACKLIST_PREFIX + token;
+        long loadedAt = snapshotLoadedAt.getOrDefault(shards.forKey(key).getName(), 0L);
+        RedisShard previous = shards.previousOwner(key);
+        if (previous != null) {
+            loadedAt = Math.min(loadedAt, snapshotLoadedAt.getOrDefault(previous.getName(), 0L));
+        }
+        return loadedAt;
+    }
+    
+    /**
+     * Sorted set member for a blacklisted token; JWTs never contain ':'.
+     */
+    static String revocationMember(String token, long expiresAt) {
+        return expiresAt + ":" + token;
+    }
+    
+    @Override
+    public void saveRevocationEpoch(String userId, long epoch, long ttlSeconds) {
+        String key = REVOCATION_EPOCH_PREFIX + userId;
+        shards.forKey(key).execute("epoch", redis -> {
+            redis.opsForValue().set(key, String.valueOf(epoch), ttlSeconds, TimeUnit.SECONDS);
+            redis.convertAndSend(REVOCATION_EPOCH_CHANNEL, userId + ":" + epoch);
+            return null;
+        });
+    }
+    
+    @Override
+    public Long getRevocationEpoch(String userId) {
+        String stored = getValue(REVOCATION_EPOCH_PREFIX + userId);
+        return stored != null ? Long.parseLong(stored) : null;
+    }
+    
+    @Override
+    public boolean claimRotation(String rotationId, long ttlMs) {
+        String key = ROTATION_CLAIM_PREFIX + rotationId;
+        return Boolean.TRUE.equals(shards.forKey(key).execute("claim",
+                redis -> redis.opsForValue().setIfAbsent(key, "claimed", ttlMs, TimeUnit.MILLISECONDS)));
+    }
+    
+    @Override
+    public void releaseRotation(String rotationId) {
+        String key = ROTATION_CLAIM_PREFIX + rotationId;
+        shards.forKey(key).execute("delete", redis -> redis.delete(key));
+    }
+    
+    @Override
+    public void saveRotationResult(String rotationId, String result, long ttlMs) {
+        String key = ROTATION_RESULT_PREFIX + rotationId;
+        shards.forKey(key).execute("set", redis -> {
+            redis.opsForValue().set(key, result, ttlMs, TimeUnit.MILLISECONDS);
+            return null;
+        });
+    }
+    
+    @Override
+    public String getRotationResult(String rotationId) {
+        return getValue(ROTATION_RESULT_PREFIX + rotationId);
+    }
+    
+    @Override
+    public List<KeySpace> keySpaces() {
+        List<KeySpace> keySpaces = new ArrayList<>();
+        for (RedisShard shard : shards.getAllShards()) {
+            keySpaces.add(new ShardKeySpace(shard));
+        }
+        return keySpaces;
+    }
+    
+    /**
+     * Read a value from its owner, falling back to the previous owner while resharding.
+     */
+    private String getValue(String key) {
+        String value = shards.forKey(key).execute("get", redis -> redis.opsForValue().get(key));
+        if (value != null) {
+            return value;
+        }
+        RedisShard previous = shards.previousOwner(key);
+        return previous != null ? previous.execute("get", redis -> redis.opsForValue().get(key)) : null;
+    }
+    
+    /**
+     * Keys of one shard, walked with SCAN so Redis is never blocked.
+     * TTL and MEMORY USAGE for each batch are fetched in one pipelined round trip.
+     */
+    private static class ShardKeySpace implements KeySpace {
+        
+        private static final byte[] USAGE = "USAGE".getBytes(StandardCharsets.UTF_8);
+        
+        private final RedisShard shard;
+        
+        ShardKeySpace(RedisShard shard) {
+            this.shard = shard;
+        }
+        
+        @Override
+        public String getName() {
+            return shard.getName();
+        }
+        
+        @Override
+        public long size() {
+            Long size = shard.execute("dbsize", redis -> redis.execute((RedisCallback<Long>) connection -> connection.serverCommands().dbSize()));
+            return size != null ? size : 0;
+        }
+        
+        @Override
+        public boolean scan(int batchSize, Predicate<List<KeySample>> visitor) {
+            ScanOptions options = ScanOptions.scanOptions().count(batchSize).build();
+            try (Cursor<String> cursor = shard.execute("scan", redis -> redis.scan(options))) {
+                List<String> keys = new ArrayList<>(batchSize);
+                while (cursor.hasNext()) {
+                    keys.add(cursor.next());
+                    if (keys.size() == batchSize) {
+                        if (!visitor.test(describe(keys))) {
+                            return false;
+                        }
+                        keys = new ArrayList<>(batchSize);
+                    }
+                }
+                if (!keys.isEmpty()) {
+                    visitor.test(describe(keys));
+                }
+                return true;
+            }
+        }
+        
+        private List<KeySample> describe(List<String> keys) {
+            List<Object> results = shard.execute("introspect", redis -> redis.executePipelined((RedisCallback<Object>) connection -> {
+                for (String key : keys) {
+                    byte[] rawKey = key.getBytes(StandardCharsets.UTF_8);
+                    connection.keyCommands().pTtl(rawKey);
+                    connection.execute("MEMORY", USAGE, rawKey);
+                }
+                return null;
+            }));
+            
+            List<KeySample> samples = new ArrayList<>(keys.size());
+            for (int i = 0; i < keys.size(); i++) {
+                long ttlMs = toLong(results.get(2 * i));
+                if (ttlMs == -2) {
+                    continue; // Expired between SCAN and PTTL
+                }
+                samples.add(new KeySample(keys.get(i), ttlMs, toLong(results.get(2 * i + 1))));
+            }
+            return samples;
+        }
+        
+        private static long toLong(Object value) {
+            return value instanceof Number number ? number.longValue() : -1;
+        }
+    }
+}
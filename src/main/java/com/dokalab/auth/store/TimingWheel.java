@@ -0,0 +1,180 @@
+package com.dokalab.auth.store;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel for TTL expiry.
+ * Four levels of 64 slots; a level-0 slot spans one tick and each level up spans
+ * 64 times more, so one-second ticks cover about 194 days before entries park in
+ * the last top-level slot. Scheduling, cancelling and expiring an entry are O(1):
+ * entries are linked into their slot and cascade down a level at most once per
+ * level as time advances. Expiry is never early; it may lag by up to one tick.
+ * Not thread-safe; callers hold a lock.
+ */
+class TimingWheel {
+
+    /**
+     * Stored value, linked into a wheel slot.
+     */
+    static final class Entry {
+        final String key;
+        final String value;
+        final long expiresAt;   // Expiration time (epoch millis)
+        final long expireTick;  // First tick at or after expiresAt
+        
+        private Entry prev;
+        private Entry next;
+        private int level = -1; // -1 while not scheduled
+        private int slot;
+        
+        private Entry(String key, String value, long expiresAt, long expireTick) {
+            this.key = key;
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.expireTick = expireTick;
+        }
+    }
+    
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int LEVELS = 4;
+    
+    private final long tickMs;
+    private final Entry[][] slots = new Entry[LEVELS][WHEEL_SIZE];
+    private long currentTick;
+    private int size;
+    
+    TimingWheel(long tickMs, long now) {
+        this.tickMs = tickMs;
+        this.currentTick = now / tickMs;
+    }
+    
+    /**
+     * Create an entry expiring at the given time.
+     */
+    Entry newEntry(String key, String value, long expiresAt) {
+        long expireTick = (expiresAt + tickMs - 1) / tickMs;
+        return new Entry(key, value, expiresAt, expireTick);
+    }
+    
+    /**
+     * Schedule an entry for expiry.
+     * @return false if the entry has already expired (it is not scheduled)
+     */
+    boolean schedule(Entry entry) {
+        if (entry.expireTick <= currentTick) {
+            return false;
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = WHEEL_BITS * level;
+            long levelStart = (currentTick >>> shift) << shift;
+            if (entry.expireTick < levelStart + ((long) WHEEL_SIZE << shift)) {
+                link(entry, level, (int) ((entry.expireTick >>> shift) & (WHEEL_SIZE - 1)));
+                return true;
+            }
+        }
+        // Beyond the top level: park in its farthest slot and reschedule when that slot comes round
+        int top = LEVELS - 1;
+        link(entry, top, (int) (((currentTick >>> (WHEEL_BITS * top)) + WHEEL_SIZE - 1) & (WHEEL_SIZE - 1)));
+        return true;
+    }
+    
+    /**
+     * Remove a scheduled entry.
+     */
+    void cancel(Entry entry) {
+        if (entry.level >= 0) {
+            unlink(entry);
+        }
+    }
+    
+    /**
+     * Advance the wheel to the given time, expiring due entries.
+     * @param now Current time (epoch millis)
+     * @param onExpire Called for each expired entry
+     */
+    void advance(long now, Consumer<Entry> onExpire) {
+        long targetTick = now / tickMs;
+        while (currentTick < targetTick) {
+            currentTick++;
+            // Cascade from the highest level whose slot boundary was reached, then expire level 0
+            for (int level = LEVELS - 1; level >= 0; level--) {
+                int shift = WHEEL_BITS * level;
+                if ((currentTick & ((1L << shift) - 1)) != 0) {
+                    continue;
+                }
+                int slot = (int) ((currentTick >>> shift) & (WHEEL_SIZE - 1));
+                Entry entry = slots[level][slot];
+                slots[level][slot] = null;
+                while (entry != null) {
+                    Entry next = entry.next;
+                    entry.prev = null;
+                    entry.next = null;
+                    entry.level = -1;
+                    size--;
+                    if (!schedule(entry)) {
+                        onExpire.accept(entry);
+                    }
+                    entry = next;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Remove and return the entry that expires soonest (to slot precision).
+     * Used to make room when the store is full.
+     * @return Removed entry, or null if the wheel is empty
+     */
+    Entry pollEarliest() {
+        if (size == 0) {
+            return null;
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            long position = currentTick >>> (WHEEL_BITS * level);
+            for (int offset = 1; offset <= WHEEL_SIZE; offset++) {
+                Entry head = slots[level][(int) ((position + offset) & (WHEEL_SIZE - 1))];
+                if (head != null) {
+                    unlink(head);
+                    return head;
+                }
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Get the number of scheduled entries.
+     */
+    int size() {
+        return size;
+    }
+    
+    private void link(Entry entry, int level, int slot) {
+        Entry head = slots[level][slot];
+        entry.level = level;
+        entry.slot = slot;
+        entry.prev = null;
+        entry.next = head;
+        if (head != null) {
+            head.prev = entry;
+        }
+        slots[level][slot] = entry;
+        size++;
+    }
+    
+    private void unlink(Entry entry) {
+        if (entry.prev != null) {
+            entry.prev.next = entry.next;
+        } else {
+            slots[entry.level][entry.slot] = entry.next;
+        }
+        if (entry.next != null) {
+            entry.next.prev = entry.prev;
+        }
+        entry.prev = null;
+        entry.next = null;
+        entry.level = -1;
+        size--;
+    }
+}
@@ -0,0 +1,123 @@
+package com.dokalab.auth.store;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Storage for refresh tokens, the token blacklist and per-user revocation epochs.
+ * The engine is selected with the auth.token-store.engine property (redis or memory).
+ */
+public interface TokenStore {
+
+    // Key prefixes shared by all engines
+    String REFRESH_TOKEN_PREFIX = "refresh:";
+    String BLACKLIST_PREFIX = "blacklist:";
+    String REVOCATION_EPOCH_PREFIX = "revoked-before:";
+    String ROTATION_CLAIM_PREFIX = "rotation:";
+    String ROTATION_RESULT_PREFIX = "rotated:";
+    
+    /**
+     * Store a user's Refresh Token, replacing any previous one.
+     * @param userId User ID
+     * @param token Refresh Token
+     * @param ttlSeconds Time to live in seconds
+     * @throws IllegalStateException if the store is full and cannot take the token
+     */
+    void saveRefreshToken(String userId, String token, long ttlSeconds);
+    
+    /**
+     * Get a user's stored Refresh Token.
+     * @param userId User ID
+     * @return Refresh Token, or null if none
+     */
+    String getRefreshToken(String userId);
+    
+    /**
+     * Delete a user's Refresh Token.
+     * @param userId User ID
+     * @return true if a token was deleted, false otherwise
+     */
+    boolean deleteRefreshToken(String userId);
+    
+    /**
+     * Add a token to the blacklist until it expires.
+     * @param token Token to blacklist
+     * @param expiresAt Token expiration time (epoch millis)
+     */
+    void blacklistToken(String token, long expiresAt);
+    
+    /**
+     * Check if a token is blacklisted.
+     * @param token Token to check
+     * @return true if blacklisted, false otherwise
+     */
+    boolean isBlacklisted(String token);
+    
+    /**
+     * Load tokens blacklisted since the previous call that have not expired yet,
+     * for the local revocation snapshot. The first call loads every live entry;
+     * each call returns a bounded batch, so a backlog is caught up over several calls.
+     * @param now Current time (epoch millis)
+     * @return Token -> expiration time (epoch millis)
+     */
+    Map<String, Long> loadRecentRevocations(long now);
+    
+    /**
+     * Get when loadRecentRevocations last caught up with the revocations that could hold a token,
+     * so the snapshot is not trusted for a shard it failed to read.
+     * @param token Token to check
+     * @return Load time (epoch millis), 0 if never, or Long.MAX_VALUE if there is nothing to snapshot
+     */
+    default long revocationsLoadedAt(String token) {
+        return Long.MAX_VALUE;
+    }
+    
+    /**
+     * Store a user's revocation epoch and notify other nodes.
+     * @param userId User ID
+     * @param epoch Not-before time (epoch millis)
+     * @param ttlSeconds Time to live in seconds
+     */
+    void saveRevocationEpoch(String userId, long epoch, long ttlSeconds);
+    
+    /**
+     * Get a user's revocation epoch.
+     * @param userId User ID
+     * @return Not-before time (epoch millis), or null if none
+     */
+    Long getRevocationEpoch(String userId);
+    
+    /**
+     * Claim the rotation of a refresh token, so only one node runs it.
+     * @param rotationId Rotation ID derived from the refresh token
+     * @param ttlMs How long the claim is held if it is never released
+     * @return true if claimed, false if another caller holds the claim
+     */
+    boolean claimRotation(String rotationId, long ttlMs);
+    
+    /**
+     * Release a rotation claim after the rotation failed, so another caller can retry it.
+     * @param rotationId Rotation ID
+     */
+    void releaseRotation(String rotationId);
+    
+    /**
+     * Publish the result of a rotation to callers waiting on other nodes.
+     * @param rotationId Rotation ID
+     * @param result Serialized token pair
+     * @param ttlMs Time to live in milliseconds
+     */
+    void saveRotationResult(String rotationId, String result, long ttlMs);
+    
+    /**
+     * Get the published result of a rotation.
+     * @param rotationId Rotation ID
+     * @return Serialized token pair, or null if none
+     */
+    String getRotationResult(String rotationId);
+    
+    /**
+     * Get the key spaces holding this store's keys, for introspection.
+     */
+    List<KeySpace> keySpaces();
+}
@@ -0,0 +1,126 @@
+package com.dokalab.auth.grpc;
+
+import com.dokalab.auth.grpc.v1.TokenVerificationGrpc;
+import com.dokalab.auth.grpc.v1.VerifyRequest;
+import com.dokalab.auth.grpc.v1.VerifyResponse;
+import com.dokalab.auth.model.User;
+import com.dokalab.auth.service.JwtService;
+import io.grpc.ManagedChannel;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "auth.grpc.in-process-name=auth-verification-test",
+        "auth.token-store.engine=memory"
+})
+@ActiveProfiles("test")
+class TokenVerificationGrpcServiceTest {
+
+    private static final int STREAM_REQUESTS = 50;
+    
+    @Autowired
+    private JwtService jwtService;
+    
+    private ManagedChannel channel;
+    
+    @BeforeEach
+    void openChannel() {
+        channel = InProcessChannelBuilder.forName("auth-verification-test")
+                .directExecutor()
+                .build();
+    }
+    
+    @AfterEach
+    void closeChannel() throws InterruptedException {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+    
+    @Test
+    void verifyAcceptsValidToken() {
+        String token = jwtService.generateAccessToken(testUser());
+        
+        VerifyResponse response = TokenVerificationGrpc.newBlockingStub(channel)
+                .verify(VerifyRequest.newBuilder().setToken(token).setRequestId("single").build());
+        
+        assertTrue(response.getValid());
+        assertEquals("grpc-user", response.getUserId());
+        assertEquals("user", response.getRole());
+        assertEquals("single", response.getRequestId());
+    }
+    
+    @Test
+    void verifyRejectsInvalidToken() {
+        VerifyResponse response = TokenVerificationGrpc.newBlockingStub(channel)
+                .verify(VerifyRequest.newBuilder().setToken("not-a-token").setRequestId("bad").build());
+        
+        assertFalse(response.getValid());
+        assertEquals("", response.getUserId());
+        assertEquals("bad", response.getRequestId());
+    }
+    
+    @Test
+    void verifyStreamAnswersEveryRequestById() throws InterruptedException {
+        String token = jwtService.generateAccessToken(testUser());
+        Map<String, VerifyResponse> responses = new ConcurrentHashMap<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+        
+        StreamObserver<VerifyRequest> requests = TokenVerificationGrpc.newStub(channel)
+                .verifyStream(new StreamObserver<>() {
+                    @Override
+                    public void onNext(VerifyResponse response) {
+                        responses.put(response.getRequestId(), response);
+                    }
+                    
+                    @Override
+                    public void onError(Throwable t) {
+                        failure.set(t);
+                        done.countDown();
+                    }
+                    
+                    @Override
+                    public void onCompleted() {
+                        done.countDown();
+                    }
+                });
+        
+        // Even IDs carry the valid token, odd IDs an invalid one
+        for (int i = 0; i < STREAM_REQUESTS; i++) {
+            requests.onNext(VerifyRequest.newBuilder()
+                    .setToken(i % 2 == 0 ? token : "invalid-" + i)
+                    .setRequestId(String.valueOf(i))
+                    .build());
+        }
+        requests.onCompleted();
+        
+        assertTrue(done.await(10, TimeUnit.SECONDS), "Stream did not complete");
+        assertNull(failure.get());
+        assertEquals(STREAM_REQUESTS, responses.size());
+        for (int i = 0; i < STREAM_REQUESTS; i++) {
+            assertEquals(i % 2 == 0, responses.get(String.valueOf(i)).getValid(), "Request " + i);
+        }
+    }
+    
+    private static User testUser() {
+        return User.builder()
+                .id("grpc-user")
+                .email("grpc@example.com")
+                .name("gRPC Test")
+                .role("user")
+                .build();
+    }
+}
@@ -0,0 +1,60 @@
+package com.dokalab.auth.service;
+
+import com.dokalab.auth.model.TokenProfile;
+import com.dokalab.auth.model.User;
+import com.dokalab.auth.store.InMemoryTokenStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthServiceTest {
+
+    private InMemoryTokenStore tokenStore;
+    private JwtService jwtService;
+    private AuthService authService;
+    
+    @BeforeEach
+    void setUp() {
+        tokenStore = new InMemoryTokenStore(1000, 1000);
+        jwtService = new JwtService(tokenStore, new RevocationSnapshot(1000), new RevocationEpochCache(60_000, 1000),
+                FallbackPolicy.FAIL_CLOSED, 30_000, TokenProfile.STANDARD);
+        authService = new AuthService(jwtService, new RefreshSingleFlight(tokenStore, new ObjectMapper(), 10000, 5000));
+    }
+    
+    @AfterEach
+    void tearDown() {
+        tokenStore.shutdown();
+    }
+    
+    @Test
+    void logoutEverywhereRevokesTokenAndRejectsItAfterwards() {
+        String token = jwtService.generateAccessToken(testUser());
+        
+        assertEquals("logout-user", authService.logoutEverywhere(token));
+        assertNull(jwtService.verifyAccessToken(token));
+        
+        // The revoked token cannot trigger another logout
+        assertThrows(RuntimeException.class, () -> authService.logoutEverywhere(token));
+    }
+    
+    @Test
+    void logoutEverywhereRejectsBlacklistedToken() {
+        String token = jwtService.generateAccessToken(testUser());
+        jwtService.blacklistToken(token);
+        
+        assertThrows(RuntimeException.class, () -> authService.logoutEverywhere(token));
+        assertNull(tokenStore.getRevocationEpoch("logout-user"));
+    }
+    
+    private static User testUser() {
+        return User.builder()
+                .id("logout-user")
+                .email("logout@example.com")
+                .name("Logout Test")
+                .role("user")
+                .build();
+    }
+}
@@ -0,0 +1,300 @@
+package com.dokalab.auth.service;
+
+import com.dokalab.auth.model.AuthTokens;
+import com.dokalab.auth.model.JwtConstants;
+import com.dokalab.auth.model.JwtPayload;
+import com.dokalab.auth.model.TokenProfile;
+import com.dokalab.auth.model.User;
+import com.dokalab.auth.store.InMemoryTokenStore;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceTest {
+
+    private FlakyTokenStore tokenStore;
+    private RevocationEpochCache epochCache;
+    private JwtService jwtService;
+    
+    @BeforeEach
+    void setUp() {
+        tokenStore = new FlakyTokenStore();
+        epochCache = new RevocationEpochCache(60_000, 1000);
+        jwtService = newJwtService(TokenProfile.STANDARD);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        tokenStore.shutdown();
+    }
+    
+    @Test
+    void tokensIssuedInSameSecondAsLogoutAllStayValid() {
+        User user = testUser();
+        String before = jwtService.generateAccessToken(user);
+        
+        jwtService.revokeAllTokens(user.getId());
+        AuthTokens after = jwtService.generateTokens(user);
+        String accessAfter = jwtService.generateAccessToken(user);
+        
+        assertNull(jwtService.verifyAccessToken(before));
+        JwtPayload payload = jwtService.verifyAccessToken(after.getAccessToken());
+        assertNotNull(payload);
+        assertNotNull(jwtService.verifyAccessToken(accessAfter));
+        assertTrue(jwtService.validateRefreshToken(after.getRefreshToken(), user.getId()));
+        
+        // Dated at the epoch, which is rounded up to a whole second
+        long epoch = tokenStore.getRevocationEpoch(user.getId());
+        assertEquals(0, epoch % 1000);
+        assertTrue(payload.getIat() >= epoch, "Issued at " + payload.getIat() + " before epoch " + epoch);
+    }
+    
+    @Test
+    void epochIsReadFromStoreOnMissAndFromCacheOnHit() {
+        String token = jwtService.generateAccessToken(testUser());
+        int reads = tokenStore.epochReads.get();
+        
+        assertNotNull(jwtService.verifyAccessToken(token));
+        assertEquals(reads + 1, tokenStore.epochReads.get());
+        assertEquals(0L, epochCache.get("epoch-user"));
+        
+        assertNotNull(jwtService.verifyAccessToken(token));
+        assertEquals(reads + 1, tokenStore.epochReads.get());
+    }
+    
+    @Test
+    void epochPublishedByAnotherNodeRevokesCachedUser() {
+        String token = jwtService.generateAccessToken(testUser());
+        assertNotNull(jwtService.verifyAccessToken(token));
+        
+        epochCache.onEpochMessage("epoch-user:" + (System.currentTimeMillis() / 1000 + 1) * 1000);
+        
+        assertNull(jwtService.verifyAccessToken(token));
+    }
+    
+    @Test
+    void unsavedEpochIsFlushedOnceStoreRecovers() {
+        tokenStore.available = false;
+        jwtService.revokeAllTokens("epoch-user");
+        Map<String, Long> unsaved = epochCache.getUnsaved();
+        assertEquals(1, unsaved.size());
+        long epoch = unsaved.get("epoch-user");
+        
+        // Still unavailable: kept for the next run
+        jwtService.flushUnsavedRevocationEpochs();
+        assertEquals(unsaved, epochCache.getUnsaved());
+        
+        tokenStore.available = true;
+        jwtService.flushUnsavedRevocationEpochs();
+        assertEquals(epoch, tokenStore.getRevocationEpoch("epoch-user"));
+        assertTrue(epochCache.getUnsaved().isEmpty());
+    }
+    
+    @Test
+    void flushKeepsNewerEpochAlreadyStored() {
+        tokenStore.available = false;
+        jwtService.revokeAllTokens("epoch-user");
+        long epoch = epochCache.getUnsaved().get("epoch-user");
+        
+        tokenStore.available = true;
+        tokenStore.saveRevocationEpoch("epoch-user", epoch + 5000, 600);
+        jwtService.flushUnsavedRevocationEpochs();
+        
+        assertEquals(epoch + 5000, tokenStore.getRevocationEpoch("epoch-user"));
+        assertTrue(epochCache.getUnsaved().isEmpty());
+    }
+    
+    @Test
+    void tokensAreIssuedUnstoredWhileStoreUnavailable() {
+        tokenStore.available = false;
+        
+        AuthTokens tokens = jwtService.generateTokens(testUser());
+        
+        assertNotNull(tokens.getRefreshToken());
+        tokenStore.available = true;
+        assertNull(tokenStore.getRefreshToken("epoch-user"));
+    }
+    
+    @Test
+    void fullStoreFailsIssuanceInsteadOfIssuingUnstoredToken() {
+        long expiresAt = System.currentTimeMillis() + 600_000;
+        for (int i = 0; i < 1000; i++) {
+            tokenStore.blacklistToken("revoked-" + i, expiresAt);
+        }
+        
+        assertThrows(IllegalStateException.class, () -> jwtService.generateTokens(testUser()));
+        assertNull(tokenStore.getRefreshToken("epoch-user"));
+    }
+    
+    @Test
+    void failClosedRejectsTokenWhoseShardWasNotLoaded() {
+        String token = jwtService.generateAccessToken(testUser());
+        jwtService.refreshRevocationSnapshot();
+        tokenStore.available = false;
+        
+        // Snapshot fresh and the token's shard loaded with it
+        assertFalse(jwtService.isTokenBlacklisted(token));
+        
+        // Snapshot fresh, but the token's shard was skipped since long before
+        tokenStore.revocationsLoadedAt = System.currentTimeMillis() - 60_000;
+        assertTrue(jwtService.isTokenBlacklisted(token));
+    }
+    
+    @Test
+    void compactTokenRoundTripsRoleCodes() {
+        JwtService compact = newJwtService(TokenProfile.COMPACT);
+        
+        User user = testUser();
+        String userToken = compact.generateAccessToken(user);
+        user.setRole("admin");
+        String adminToken = compact.generateAccessToken(user);
+        
+        assertTrue(claimsJson(userToken).contains("\"r\":0"));
+        assertTrue(claimsJson(adminToken).contains("\"r\":1"));
+        assertEquals("user", compact.extractAccessTokenPayload(userToken).getRole());
+        assertEquals("admin", compact.extractAccessTokenPayload(adminToken).getRole());
+    }
+    
+    @Test
+    void compactTokenKeepsRoleWithoutCodeAsName() {
+        User user = testUser();
+        user.setRole("auditor");
+        String token = newJwtService(TokenProfile.COMPACT).generateAccessToken(user);
+        
+        assertTrue(claimsJson(token).contains("\"r\":\"auditor\""));
+        assertEquals("auditor", jwtService.extractAccessTokenPayload(token).getRole());
+    }
+    
+    @Test
+    void unknownRoleCodeIsNotMappedToKnownRole() {
+        String token = signAccessToken(Map.of("r", 7));
+        
+        JwtPayload payload = jwtService.extractAccessTokenPayload(token);
+        assertEquals("7", payload.getRole());
+        assertNull(payload.getEmail());
+    }
+    
+    @Test
+    void tokenWithoutRoleClaimHasNoRole() {
+        String token = signAccessToken(Map.of());
+        
+        JwtPayload payload = jwtService.extractAccessTokenPayload(token);
+        assertEquals("epoch-user", payload.getSub());
+        assertNull(payload.getRole());
+    }
+    
+    @Test
+    void standardAndCompactTokensAreToldApart() {
+        String standardToken = jwtService.generateAccessToken(testUser(), TokenProfile.STANDARD);
+        String compactToken = jwtService.generateAccessToken(testUser(), TokenProfile.COMPACT);
+        assertFalse(claimsJson(standardToken).contains("\"r\""));
+        assertFalse(claimsJson(compactToken).contains("\"email\""));
+        
+        // Either service reads both profiles
+        for (JwtService service : new JwtService[] { jwtService, newJwtService(TokenProfile.COMPACT) }) {
+            JwtPayload standard = service.verifyAccessToken(standardToken);
+            assertEquals("epoch@example.com", standard.getEmail());
+            assertEquals("Epoch Test", standard.getName());
+            assertEquals("user", standard.getRole());
+            
+            JwtPayload compact = service.verifyAccessToken(compactToken);
+            assertNull(compact.getEmail());
+            assertNull(compact.getName());
+            assertEquals("user", compact.getRole());
+        }
+    }
+    
+    private JwtService newJwtService(TokenProfile profile) {
+        return new JwtService(tokenStore, new RevocationSnapshot(1000), epochCache,
+                FallbackPolicy.FAIL_CLOSED, 30_000, profile);
+    }
+    
+    /**
+     * Sign an access token for the test user with the given extra claims.
+     */
+    private static String signAccessToken(Map<String, Object> claims) {
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .setSubject("epoch-user")
+                .addClaims(claims)
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + JwtConstants.ACCESS_TOKEN_EXPIRY * 1000))
+                .signWith(Keys.hmacShaKeyFor(JwtConstants.JWT_SECRET.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS256)
+                .compact();
+    }
+    
+    private static String claimsJson(String token) {
+        return new String(Base64.getUrlDecoder().decode(token.split("\\.")[1]), StandardCharsets.UTF_8);
+    }
+    
+    private static User testUser() {
+        return User.builder()
+                .id("epoch-user")
+                .email("epoch@example.com")
+                .name("Epoch Test")
+                .role("user")
+                .build();
+    }
+    
+    /**
+     * In-process store whose epoch, blacklist and refresh token calls can be made to fail like an unreachable Redis shard.
+     */
+    private static class FlakyTokenStore extends InMemoryTokenStore {
+        
+        volatile boolean available = true;
+        volatile long revocationsLoadedAt = Long.MAX_VALUE;
+        final AtomicInteger epochReads = new AtomicInteger();
+        
+        FlakyTokenStore() {
+            super(1000, 1000);
+        }
+        
+        @Override
+        public Long getRevocationEpoch(String userId) {
+            checkAvailable();
+            epochReads.incrementAndGet();
+            return super.getRevocationEpoch(userId);
+        }
+        
+        @Override
+        public boolean isBlacklisted(String token) {
+            checkAvailable();
+            return super.isBlacklisted(token);
+        }
+        
+        @Override
+        public long revocationsLoadedAt(String token) {
+            return revocationsLoadedAt;
+        }
+        
+        @Override
+        public void saveRefreshToken(String userId, String token, long ttlSeconds) {
+            checkAvailable();
+            super.saveRefreshToken(userId, token, ttlSeconds);
+        }
+        
+        @Override
+        public void saveRevocationEpoch(String userId, long epoch, long ttlSeconds) {
+            checkAvailable();
+            super.saveRevocationEpoch(userId, epoch, ttlSeconds);
+        }
+        
+        private void checkAvailable() {
+            if (!available) {
+                throw new RedisConnectionFailureException("Redis shard unavailable");
+            }
+        }
+    }
+}
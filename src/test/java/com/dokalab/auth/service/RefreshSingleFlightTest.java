@@ -0,0 +1,124 @@
+package com.dokalab.auth.service;
+
+import com.dokalab.auth.model.AuthTokens;
+import com.dokalab.auth.store.InMemoryTokenStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RefreshSingleFlightTest {
+
+    private static final int CALLERS = 8;
+    
+    private InMemoryTokenStore tokenStore;
+    private ExecutorService callers;
+    
+    @BeforeEach
+    void setUp() {
+        tokenStore = new InMemoryTokenStore(1000, 1000);
+        callers = Executors.newFixedThreadPool(CALLERS);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        tokenStore.shutdown();
+    }
+    
+    @Test
+    void concurrentCallersOnOneNodeShareOneRotation() throws Exception {
+        RefreshSingleFlight singleFlight = newSingleFlight();
+        AtomicInteger rotations = new AtomicInteger();
+        
+        List<AuthTokens> results = runConcurrently(i -> singleFlight, "refresh-token", slowRotation(rotations));
+        
+        assertEquals(1, rotations.get());
+        assertAllEqual(results);
+    }
+    
+    @Test
+    void concurrentCallersOnTwoNodesShareOneRotation() throws Exception {
+        // Two nodes with their own single-flight state, sharing one token store
+        RefreshSingleFlight nodeA = newSingleFlight();
+        RefreshSingleFlight nodeB = newSingleFlight();
+        AtomicInteger rotations = new AtomicInteger();
+        
+        List<AuthTokens> results = runConcurrently(i -> i % 2 == 0 ? nodeA : nodeB, "refresh-token", slowRotation(rotations));
+        
+        assertEquals(1, rotations.get());
+        assertAllEqual(results);
+    }
+    
+    @Test
+    void failedRotationIsRetriedByWaitingNode() {
+        RefreshSingleFlight nodeA = newSingleFlight();
+        RefreshSingleFlight nodeB = newSingleFlight();
+        
+        assertThrows(RuntimeException.class, () -> nodeA.execute("refresh-token", () -> {
+            throw new RuntimeException("Invalid refresh token");
+        }));
+        
+        // The claim was released, so the next caller rotates instead of waiting for the lock to expire
+        AuthTokens tokens = nodeB.execute("refresh-token", () -> new AuthTokens("access", "refresh"));
+        assertEquals("access", tokens.getAccessToken());
+    }
+    
+    private RefreshSingleFlight newSingleFlight() {
+        return new RefreshSingleFlight(tokenStore, new ObjectMapper(), 10000, 5000);
+    }
+    
+    private static Supplier<AuthTokens> slowRotation(AtomicInteger rotations) {
+        return () -> {
+            int rotation = rotations.incrementAndGet();
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new AuthTokens("access-" + rotation, "refresh-" + rotation);
+        };
+    }
+    
+    private interface NodeSelector {
+        RefreshSingleFlight select(int caller);
+    }
+    
+    private List<AuthTokens> runConcurrently(NodeSelector nodes, String refreshToken, Supplier<AuthTokens> rotation) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<AuthTokens>> futures = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            RefreshSingleFlight node = nodes.select(i);
+            futures.add(callers.submit(() -> {
+                start.await();
+                return node.execute(refreshToken, rotation);
+            }));
+        }
+        start.countDown();
+        
+        List<AuthTokens> results = new ArrayList<>();
+        for (Future<AuthTokens> future : futures) {
+            results.add(future.get(10, TimeUnit.SECONDS));
+        }
+        return results;
+    }
+    
+    private static void assertAllEqual(List<AuthTokens> results) {
+        assertEquals(CALLERS, results.size());
+        for (AuthTokens tokens : results) {
+            assertEquals(results.get(0), tokens);
+        }
+    }
+}
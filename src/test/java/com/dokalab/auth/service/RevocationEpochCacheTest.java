@@ -0,0 +1,83 @@
+package com.dokalab.auth.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RevocationEpochCacheTest {
+
+    @Test
+    void missUntilCachedThenHit() {
+        RevocationEpochCache cache = new RevocationEpochCache(60_000, 10);
+        assertNull(cache.get("user"));
+        assertNull(cache.getStale("user"));
+        
+        cache.put("user", 0L);
+        assertEquals(0L, cache.get("user"));
+        
+        cache.put("user", 5000L);
+        assertEquals(5000L, cache.get("user"));
+    }
+    
+    @Test
+    void expiredEntryMissesButStaysAvailableAsStale() throws InterruptedException {
+        RevocationEpochCache cache = new RevocationEpochCache(20, 10);
+        cache.put("user", 5000L);
+        Thread.sleep(50);
+        
+        assertNull(cache.get("user"));
+        assertEquals(5000L, cache.getStale("user"));
+    }
+    
+    @Test
+    void epochsOnlyMoveForward() {
+        RevocationEpochCache cache = new RevocationEpochCache(60_000, 10);
+        cache.put("user", 2000L);
+        cache.put("user", 1000L);
+        cache.onEpochMessage("user:1500");
+        
+        assertEquals(2000L, cache.get("user"));
+    }
+    
+    @Test
+    void leastRecentlyUsedEntryIsEvicted() {
+        RevocationEpochCache cache = new RevocationEpochCache(60_000, 2);
+        cache.put("a", 1000L);
+        cache.put("b", 1000L);
+        cache.get("a");
+        cache.put("c", 1000L);
+        
+        assertEquals(1000L, cache.get("a"));
+        assertNull(cache.getStale("b"));
+        assertEquals(1000L, cache.get("c"));
+    }
+    
+    @Test
+    void unsavedEpochSurvivesEvictionUntilSaved() {
+        RevocationEpochCache cache = new RevocationEpochCache(60_000, 1);
+        cache.putUnsaved("a", 5000L);
+        cache.put("b", 0L);
+        
+        assertEquals(5000L, cache.getStale("a"));
+        assertEquals(Map.of("a", 5000L), cache.getUnsaved());
+        
+        cache.markSaved("a", 5000L);
+        assertTrue(cache.getUnsaved().isEmpty());
+    }
+    
+    @Test
+    void markingOlderEpochSavedKeepsNewerOne() {
+        RevocationEpochCache cache = new RevocationEpochCache(60_000, 10);
+        cache.putUnsaved("user", 1000L);
+        cache.putUnsaved("user", 2000L);
+        
+        cache.markSaved("user", 1000L);
+        assertEquals(Map.of("user", 2000L), cache.getUnsaved());
+        
+        // A newer epoch from another node does not hide the unsaved one
+        cache.put("user", 1500L);
+        assertEquals(2000L, cache.get("user"));
+    }
+}
@@ -0,0 +1,92 @@
+package com.dokalab.auth.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsistentHashRingTest {
+
+    private static final int VIRTUAL_NODES = 160;
+    private static final int KEYS = 100_000;
+    
+    @Test
+    void keysAreSpreadEvenlyOverNodes() {
+        ConsistentHashRing<String> ring = ring("redis-a:6379", "redis-b:6379", "redis-c:6379", "redis-d:6379");
+        
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            counts.merge(ring.get(key(i)), 1, Integer::sum);
+        }
+        
+        assertEquals(4, counts.size());
+        int expected = KEYS / 4;
+        for (Map.Entry<String, Integer> count : counts.entrySet()) {
+            assertTrue(Math.abs(count.getValue() - expected) < expected * 0.2,
+                    "Uneven share for " + count.getKey() + ": " + count.getValue());
+        }
+    }
+    
+    @Test
+    void addingNodeOnlyMovesKeysToIt() {
+        ConsistentHashRing<String> before = ring("redis-a:6379", "redis-b:6379", "redis-c:6379");
+        ConsistentHashRing<String> after = ring("redis-a:6379", "redis-b:6379", "redis-c:6379", "redis-d:6379");
+        
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String owner = after.get(key(i));
+            if (!owner.equals(before.get(key(i)))) {
+                assertEquals("redis-d:6379", owner, "Key moved between unchanged nodes: " + key(i));
+                moved++;
+            }
+        }
+        // About 1/4 of the keys belong to the new node
+        assertTrue(moved > KEYS * 0.15 && moved < KEYS * 0.35, "Moved: " + moved);
+    }
+    
+    @Test
+    void removingNodeOnlyMovesItsKeys() {
+        ConsistentHashRing<String> before = ring("redis-a:6379", "redis-b:6379", "redis-c:6379", "redis-d:6379");
+        ConsistentHashRing<String> after = ring("redis-a:6379", "redis-b:6379", "redis-d:6379");
+        
+        for (int i = 0; i < KEYS; i++) {
+            String previous = before.get(key(i));
+            if (!previous.equals("redis-c:6379")) {
+                assertEquals(previous, after.get(key(i)), "Key moved off a remaining node: " + key(i));
+            } else {
+                assertNotEquals("redis-c:6379", after.get(key(i)));
+            }
+        }
+    }
+    
+    @Test
+    void ownersDoNotDependOnNodeOrder() {
+        ConsistentHashRing<String> ring = ring("redis-a:6379", "redis-b:6379", "redis-c:6379");
+        ConsistentHashRing<String> reversed = ring("redis-c:6379", "redis-b:6379", "redis-a:6379");
+        
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(ring.get(key(i)), reversed.get(key(i)));
+        }
+    }
+    
+    @Test
+    void emptyRingIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing<String>(Map.of(), VIRTUAL_NODES));
+    }
+    
+    private static ConsistentHashRing<String> ring(String... nodes) {
+        Map<String, String> nodesByName = new LinkedHashMap<>();
+        for (String node : List.of(nodes)) {
+            nodesByName.put(node, node);
+        }
+        return new ConsistentHashRing<>(nodesByName, VIRTUAL_NODES);
+    }
+    
+    private static String key(int i) {
+        return TokenStore.REFRESH_TOKEN_PREFIX + "user-" + i;
+    }
+}
@@ -0,0 +1,61 @@
+package com.dokalab.auth.store;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryTokenStoreTest {
+
+    private static final int MAX_ENTRIES = 3;
+    private static final long TTL_SECONDS = 600;
+    
+    private InMemoryTokenStore store;
+    
+    @BeforeEach
+    void createStore() {
+        store = new InMemoryTokenStore(MAX_ENTRIES, 1000);
+    }
+    
+    @AfterEach
+    void shutdownStore() {
+        store.shutdown();
+    }
+    
+    @Test
+    void fullStoreEvictsRefreshSessionsClosestToExpiry() {
+        long expiresAt = System.currentTimeMillis() + TTL_SECONDS * 1000;
+        store.saveRefreshToken("soon", "token-soon", 60);
+        store.saveRefreshToken("later", "token-later", TTL_SECONDS);
+        store.blacklistToken("revoked", expiresAt);
+        
+        store.saveRefreshToken("new", "token-new", TTL_SECONDS);
+        
+        assertNull(store.getRefreshToken("soon"));
+        assertEquals("token-later", store.getRefreshToken("later"));
+        assertEquals("token-new", store.getRefreshToken("new"));
+        assertTrue(store.isBlacklisted("revoked"));
+    }
+    
+    @Test
+    void revocationStateIsNeverEvicted() {
+        long expiresAt = System.currentTimeMillis() + TTL_SECONDS * 1000;
+        store.blacklistToken("revoked-1", expiresAt);
+        store.blacklistToken("revoked-2", expiresAt);
+        store.saveRevocationEpoch("user", System.currentTimeMillis(), TTL_SECONDS);
+        
+        // Revocation writes are admitted above the limit
+        store.blacklistToken("revoked-3", expiresAt);
+        assertEquals(MAX_ENTRIES + 1, store.size());
+        
+        // A refresh session cannot make room by dropping revocation state
+        assertThrows(IllegalStateException.class, () -> store.saveRefreshToken("user", "token", TTL_SECONDS));
+        
+        assertTrue(store.isBlacklisted("revoked-1"));
+        assertTrue(store.isBlacklisted("revoked-2"));
+        assertTrue(store.isBlacklisted("revoked-3"));
+        assertNotNull(store.getRevocationEpoch("user"));
+        assertNull(store.getRefreshToken("user"));
+    }
+}
@@ -0,0 +1,79 @@
+package com.dokalab.auth.store;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedisCircuitBreakerTest {
+
+    private static final int FAILURE_THRESHOLD = 3;
+    
+    @Test
+    void opensAfterConsecutiveFailuresAndShortCircuits() {
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker("redis-a:6379", FAILURE_THRESHOLD, 60_000);
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            assertThrows(IllegalStateException.class, () -> breaker.execute("get", RedisCircuitBreakerTest::fail));
+        }
+        assertEquals(RedisCircuitBreaker.State.OPEN, breaker.getState());
+        
+        // Open circuit fails without calling Redis
+        AtomicInteger calls = new AtomicInteger();
+        assertThrows(RedisConnectionFailureException.class, () -> breaker.execute("get", calls::incrementAndGet));
+        assertEquals(0, calls.get());
+    }
+    
+    @Test
+    void successResetsFailureCount() {
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker("redis-a:6379", FAILURE_THRESHOLD, 60_000);
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < FAILURE_THRESHOLD - 1; i++) {
+                assertThrows(IllegalStateException.class, () -> breaker.execute("get", RedisCircuitBreakerTest::fail));
+            }
+            assertEquals("value", breaker.execute("get", () -> "value"));
+        }
+        assertEquals(RedisCircuitBreaker.State.CLOSED, breaker.getState());
+    }
+    
+    @Test
+    void trialCallAfterOpenPeriodClosesCircuit() throws InterruptedException {
+        RedisCircuitBreaker breaker = open(new RedisCircuitBreaker("redis-a:6379", FAILURE_THRESHOLD, 50));
+        Thread.sleep(80);
+        
+        assertEquals("value", breaker.execute("get", () -> "value"));
+        assertEquals(RedisCircuitBreaker.State.CLOSED, breaker.getState());
+    }
+    
+    @Test
+    void failedTrialCallReopensCircuit() throws InterruptedException {
+        RedisCircuitBreaker breaker = open(new RedisCircuitBreaker("redis-a:6379", FAILURE_THRESHOLD, 50));
+        Thread.sleep(80);
+        
+        assertThrows(IllegalStateException.class, () -> breaker.execute("get", RedisCircuitBreakerTest::fail));
+        assertEquals(RedisCircuitBreaker.State.OPEN, breaker.getState());
+        assertThrows(RedisConnectionFailureException.class, () -> breaker.execute("get", () -> "value"));
+    }
+    
+    @Test
+    void breakersOfDifferentShardsAreIndependent() {
+        RedisCircuitBreaker failing = open(new RedisCircuitBreaker("redis-a:6379", FAILURE_THRESHOLD, 60_000));
+        RedisCircuitBreaker healthy = new RedisCircuitBreaker("redis-b:6379", FAILURE_THRESHOLD, 60_000);
+        
+        assertThrows(RedisConnectionFailureException.class, () -> failing.execute("get", () -> "value"));
+        assertEquals("value", healthy.execute("get", () -> "value"));
+    }
+    
+    private static RedisCircuitBreaker open(RedisCircuitBreaker breaker) {
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            assertThrows(IllegalStateException.class, () -> breaker.execute("get", RedisCircuitBreakerTest::fail));
+        }
+        assertEquals(RedisCircuitBreaker.State.OPEN, breaker.getState());
+        return breaker;
+    }
+    
+    private static String fail() {
+        throw new IllegalStateException("Connection refused");
+    }
+}
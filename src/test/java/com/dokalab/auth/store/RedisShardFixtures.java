@@ -0,0 +1,53 @@
+package com.dokalab.auth.store;
+
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Mock Redis shards and rings shared by the store tests.
+ */
+final class RedisShardFixtures {
+
+    private RedisShardFixtures() {
+    }
+    
+    /**
+     * Shard that only has a name.
+     */
+    static RedisShard shard(String name) {
+        RedisShard shard = mock(RedisShard.class);
+        when(shard.getName()).thenReturn(name);
+        return shard;
+    }
+    
+    /**
+     * Shard that runs every call against the given template.
+     */
+    static RedisShard shard(String name, RedisTemplate<String, String> redis) {
+        RedisShard shard = shard(name);
+        when(shard.execute(anyString(), any())).thenAnswer(invocation -> {
+            Function<RedisTemplate<String, String>, Object> call = invocation.getArgument(1);
+            return call.apply(redis);
+        });
+        return shard;
+    }
+    
+    /**
+     * Ring over the given shards, keyed by shard name.
+     */
+    static ConsistentHashRing<RedisShard> ring(RedisShard... shards) {
+        Map<String, RedisShard> shardsByName = new LinkedHashMap<>();
+        for (RedisShard shard : shards) {
+            shardsByName.put(shard.getName(), shard);
+        }
+        return new ConsistentHashRing<>(shardsByName, 160);
+    }
+}
@@ -0,0 +1,143 @@
+package com.dokalab.auth.store;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.dokalab.auth.store.RedisShardFixtures.shard;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RedisShardMigratorTest {
+
+    private RedisTemplate<String, String> sourceRedis;
+    private RedisTemplate<String, String> targetRedis;
+    private ValueOperations<String, String> sourceValues;
+    private ValueOperations<String, String> targetValues;
+    private ZSetOperations<String, String> targetRevocations;
+    private RedisShard source;
+    private RedisShard target;
+    private RedisShardMigrator migrator;
+    
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        sourceRedis = mock(RedisTemplate.class);
+        targetRedis = mock(RedisTemplate.class);
+        sourceValues = mock(ValueOperations.class);
+        targetValues = mock(ValueOperations.class);
+        targetRevocations = mock(ZSetOperations.class);
+        when(sourceRedis.opsForValue()).thenReturn(sourceValues);
+        when(targetRedis.opsForValue()).thenReturn(targetValues);
+        when(targetRedis.opsForZSet()).thenReturn(targetRevocations);
+        when(targetValues.setIfAbsent(anyString(), anyString())).thenReturn(true);
+        when(targetValues.setIfAbsent(anyString(), anyString(), anyLong(), any())).thenReturn(true);
+        when(sourceRedis.hasKey(anyString())).thenReturn(true);
+        source = shard("redis-a:6379", sourceRedis);
+        target = shard("redis-b:6379", targetRedis);
+        migrator = new RedisShardMigrator(mock(RedisShards.class), 500, 10);
+    }
+    
+    @Test
+    void movesValueWithRemainingTtl() {
+        String key = TokenStore.REFRESH_TOKEN_PREFIX + "user-1";
+        when(sourceValues.get(key)).thenReturn("token");
+        when(sourceRedis.getExpire(key, TimeUnit.MILLISECONDS)).thenReturn(60_000L);
+        
+        assertTrue(migrator.migrateKey(source, target, key));
+        
+        // SET NX, so a value written to the new owner in the meantime wins
+        verify(targetValues).setIfAbsent(key, "token", 60_000L, TimeUnit.MILLISECONDS);
+        verify(sourceRedis).delete(key);
+        verifyNoInteractions(targetRevocations);
+    }
+    
+    @Test
+    void movesKeyWithoutExpiry() {
+        String key = TokenStore.REFRESH_TOKEN_PREFIX + "user-1";
+        when(sourceValues.get(key)).thenReturn("token");
+        when(sourceRedis.getExpire(key, TimeUnit.MILLISECONDS)).thenReturn(-1L);
+        
+        assertTrue(migrator.migrateKey(source, target, key));
+        
+        verify(targetValues).setIfAbsent(key, "token");
+        verify(sourceRedis).delete(key);
+    }
+    
+    @Test
+    void blacklistedTokenIsAddedToTargetRevocationSet() {
+        String key = TokenStore.BLACKLIST_PREFIX + "token-1";
+        when(sourceValues.get(key)).thenReturn("blacklisted");
+        when(sourceRedis.getExpire(key, TimeUnit.MILLISECONDS)).thenReturn(30_000L);
+        long before = System.currentTimeMillis();
+        
+        assertTrue(migrator.migrateKey(source, target, key));
+        
+        verify(targetValues).setIfAbsent(key, "blacklisted", 30_000L, TimeUnit.MILLISECONDS);
+        ArgumentCaptor<String> member = ArgumentCaptor.forClass(String.class);
+        verify(targetRevocations).add(eq(RedisTokenStore.RECENT_REVOCATIONS_KEY), member.capture(), anyDouble());
+        String[] parts = member.getValue().split(":", 2);
+        assertEquals("token-1", parts[1]);
+        long expiresAt = Long.parseLong(parts[0]);
+        assertTrue(expiresAt >= before + 30_000 && expiresAt <= System.currentTimeMillis() + 30_000);
+    }
+    
+    @Test
+    void copyIsRemovedWhenSourceIsDeletedDuringMove() {
+        String key = TokenStore.REFRESH_TOKEN_PREFIX + "user-1";
+        when(sourceValues.get(key)).thenReturn("token");
+        when(sourceRedis.getExpire(key, TimeUnit.MILLISECONDS)).thenReturn(60_000L);
+        // Logged out after the GET: the source is gone by the time the copy is made
+        when(sourceRedis.hasKey(key)).thenReturn(false);
+        
+        assertFalse(migrator.migrateKey(source, target, key));
+        
+        verify(targetValues).setIfAbsent(key, "token", 60_000L, TimeUnit.MILLISECONDS);
+        verify(targetRedis).execute(RedisShardMigrator.DELETE_IF_EQUAL, List.of(key), "token");
+        verify(sourceRedis, never()).delete(key);
+    }
+    
+    @Test
+    void existingTargetValueIsNotRechecked() {
+        String key = TokenStore.REFRESH_TOKEN_PREFIX + "user-1";
+        when(sourceValues.get(key)).thenReturn("old-token");
+        when(sourceRedis.getExpire(key, TimeUnit.MILLISECONDS)).thenReturn(60_000L);
+        // A newer value was written to the new owner: SET NX leaves it alone
+        when(targetValues.setIfAbsent(key, "old-token", 60_000L, TimeUnit.MILLISECONDS)).thenReturn(false);
+        
+        assertTrue(migrator.migrateKey(source, target, key));
+        
+        verify(sourceRedis, never()).hasKey(key);
+        verify(targetRedis, never()).execute(eq(RedisShardMigrator.DELETE_IF_EQUAL), anyList(), any());
+        verify(sourceRedis).delete(key);
+    }
+    
+    @Test
+    void expiredKeyIsNotMoved() {
+        String key = TokenStore.REFRESH_TOKEN_PREFIX + "user-1";
+        when(sourceValues.get(key)).thenReturn("token");
+        when(sourceRedis.getExpire(key, TimeUnit.MILLISECONDS)).thenReturn(-2L);
+        
+        assertFalse(migrator.migrateKey(source, target, key));
+        
+        verifyNoInteractions(targetValues);
+        verify(sourceRedis, never()).delete(key);
+    }
+    
+    @Test
+    void deletedKeyIsNotMoved() {
+        String key = TokenStore.REFRESH_TOKEN_PREFIX + "user-1";
+        
+        assertFalse(migrator.migrateKey(source, target, key));
+        
+        verifyNoInteractions(targetValues);
+        verify(sourceRedis, never()).delete(key);
+    }
+}
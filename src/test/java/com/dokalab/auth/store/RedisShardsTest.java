@@ -0,0 +1,60 @@
+package com.dokalab.auth.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.dokalab.auth.store.RedisShardFixtures.ring;
+import static com.dokalab.auth.store.RedisShardFixtures.shard;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedisShardsTest {
+
+    private static final int KEYS = 1000;
+    
+    private final RedisShard shardA = shard("redis-a:6379");
+    private final RedisShard shardB = shard("redis-b:6379");
+    
+    @Test
+    void previousOwnerIsNullWhenNotResharding() {
+        RedisShards shards = new RedisShards(ring(shardA, shardB), null, List.of(shardA, shardB));
+        
+        assertFalse(shards.isMigrating());
+        for (int i = 0; i < KEYS; i++) {
+            assertNull(shards.previousOwner(key(i)));
+        }
+    }
+    
+    @Test
+    void previousOwnerIsReturnedOnlyForMovedKeys() {
+        // Resharding from one node to two: keys now owned by B were owned by A
+        RedisShards shards = new RedisShards(ring(shardA, shardB), ring(shardA), List.of(shardA, shardB));
+        
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            if (shards.forKey(key(i)) == shardB) {
+                assertSame(shardA, shards.previousOwner(key(i)));
+                moved++;
+            } else {
+                assertNull(shards.previousOwner(key(i)));
+            }
+        }
+        assertTrue(moved > 0 && moved < KEYS, "Moved: " + moved);
+    }
+    
+    @Test
+    void previousOwnerIsNullAfterMigrationFinishes() {
+        RedisShards shards = new RedisShards(ring(shardA, shardB), ring(shardA), List.of(shardA, shardB));
+        
+        shards.finishMigration();
+        
+        assertFalse(shards.isMigrating());
+        for (int i = 0; i < KEYS; i++) {
+            assertNull(shards.previousOwner(key(i)));
+        }
+    }
+    
+    private static String key(int i) {
+        return TokenStore.REFRESH_TOKEN_PREFIX + "user-" + i;
+    }
+}
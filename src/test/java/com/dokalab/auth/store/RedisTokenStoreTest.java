@@ -0,0 +1,160 @@
+package com.dokalab.auth.store;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.dokalab.auth.store.RedisShardFixtures.ring;
+import static com.dokalab.auth.store.RedisShardFixtures.shard;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RedisTokenStoreTest {
+
+    private RedisTemplate<String, String> redisA;
+    private RedisTemplate<String, String> redisB;
+    private ValueOperations<String, String> valuesA;
+    private ValueOperations<String, String> valuesB;
+    private RedisShard shardA;
+    private RedisShard shardB;
+    private RedisShards shards;
+    private RedisTokenStore store;
+    
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisA = mock(RedisTemplate.class);
+        redisB = mock(RedisTemplate.class);
+        valuesA = mock(ValueOperations.class);
+        valuesB = mock(ValueOperations.class);
+        when(redisA.opsForValue()).thenReturn(valuesA);
+        when(redisB.opsForValue()).thenReturn(valuesB);
+        shardA = shard("redis-a:6379", redisA);
+        shardB = shard("redis-b:6379", redisB);
+        
+        // Resharding from one node to two: keys now owned by B were owned by A
+        shards = new RedisShards(ring(shardA, shardB), ring(shardA), List.of(shardA, shardB));
+        store = new RedisTokenStore(shards, 100);
+    }
+    
+    @Test
+    void readFallsBackToPreviousOwnerDuringMigration() {
+        String userId = movedToB(TokenStore.REFRESH_TOKEN_PREFIX);
+        String key = TokenStore.REFRESH_TOKEN_PREFIX + userId;
+        when(valuesA.get(key)).thenReturn("token");
+        
+        assertEquals("token", store.getRefreshToken(userId));
+        verify(valuesB).get(key);
+    }
+    
+    @Test
+    void readPrefersCurrentOwner() {
+        String userId = movedToB(TokenStore.REFRESH_TOKEN_PREFIX);
+        String key = TokenStore.REFRESH_TOKEN_PREFIX + userId;
+        when(valuesB.get(key)).thenReturn("new-token");
+        when(valuesA.get(key)).thenReturn("old-token");
+        
+        assertEquals("new-token", store.getRefreshToken(userId));
+        verify(valuesA, never()).get(key);
+    }
+    
+    @Test
+    void blacklistCheckFallsBackToPreviousOwner() {
+        String token = movedToB(TokenStore.BLACKLIST_PREFIX);
+        when(redisA.hasKey(TokenStore.BLACKLIST_PREFIX + token)).thenReturn(true);
+        
+        assertTrue(store.isBlacklisted(token));
+    }
+    
+    @Test
+    void deleteAlsoRemovesKeyFromPreviousOwner() {
+        String userId = movedToB(TokenStore.REFRESH_TOKEN_PREFIX);
+        String key = TokenStore.REFRESH_TOKEN_PREFIX + userId;
+        when(redisA.delete(key)).thenReturn(true);
+        
+        assertTrue(store.deleteRefreshToken(userId));
+        // Previous owner first, so a concurrent migration sees the delete
+        InOrder order = inOrder(redisA, redisB);
+        order.verify(redisA).delete(key);
+        order.verify(redisB).delete(key);
+    }
+    
+    @Test
+    void noFallbackAfterMigrationFinishes() {
+        String userId = movedToB(TokenStore.REFRESH_TOKEN_PREFIX);
+        String key = TokenStore.REFRESH_TOKEN_PREFIX + userId;
+        when(valuesA.get(key)).thenReturn("token");
+        
+        shards.finishMigration();
+        
+        assertNull(store.getRefreshToken(userId));
+        verify(valuesA, never()).get(key);
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void skippedShardIsNotReportedAsLoaded() {
+        when(redisA.opsForZSet()).thenReturn(mock(ZSetOperations.class));
+        when(redisB.opsForZSet()).thenThrow(new RedisConnectionFailureException("Redis shard unavailable"));
+        String onA = ownedBy(shardA, TokenStore.BLACKLIST_PREFIX);
+        String onB = movedToB(TokenStore.BLACKLIST_PREFIX);
+        assertEquals(0L, store.revocationsLoadedAt(onA));
+        
+        long now = System.currentTimeMillis();
+        store.loadRecentRevocations(now);
+        
+        assertEquals(now, store.revocationsLoadedAt(onA));
+        assertEquals(0L, store.revocationsLoadedAt(onB));
+        
+        reset(redisB);
+        when(redisB.opsForZSet()).thenReturn(mock(ZSetOperations.class));
+        store.loadRecentRevocations(now + 1000);
+        
+        // Moved keys count only once both the new and the previous owner are loaded
+        assertEquals(now + 1000, store.revocationsLoadedAt(onB));
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void shardWithBacklogIsNotReportedAsLoaded() {
+        long now = System.currentTimeMillis();
+        Set<ZSetOperations.TypedTuple<String>> batch = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            batch.add(ZSetOperations.TypedTuple.of(RedisTokenStore.revocationMember("token-" + i, now + 60_000), (double) now));
+        }
+        ZSetOperations<String, String> revocationsA = mock(ZSetOperations.class);
+        when(revocationsA.rangeByScoreWithScores(eq(RedisTokenStore.RECENT_REVOCATIONS_KEY), anyDouble(), anyDouble(), anyLong(), anyLong()))
+                .thenReturn(batch);
+        when(redisA.opsForZSet()).thenReturn(revocationsA);
+        when(redisB.opsForZSet()).thenReturn(mock(ZSetOperations.class));
+        
+        // A full batch means more entries are waiting on A
+        assertEquals(100, store.loadRecentRevocations(now).size());
+        assertEquals(0L, store.revocationsLoadedAt(ownedBy(shardA, TokenStore.BLACKLIST_PREFIX)));
+    }
+    
+    /**
+     * Find an ID whose key moved from shard A to shard B.
+     */
+    private String movedToB(String prefix) {
+        return ownedBy(shardB, prefix);
+    }
+    
+    private String ownedBy(RedisShard owner, String prefix) {
+        for (int i = 0; ; i++) {
+            String id = "id-" + i;
+            if (shards.forKey(prefix + id) == owner) {
+                return id;
+            }
+        }
+    }
+}
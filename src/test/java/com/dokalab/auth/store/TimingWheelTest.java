@@ -0,0 +1,126 @@
+package com.dokalab.auth.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    // With one-millisecond ticks, expiry times are tick numbers
+    private static final long TICK_MS = 1;
+    
+    @Test
+    void expiresExactlyAtCascadeBoundaries() {
+        // Last tick of each level and first tick of the next, from an aligned and an unaligned start
+        long[] boundaries = {63, 64, 65, 4095, 4096, 4097, 262143, 262144, 262145};
+        for (long start : new long[]{0, 1000}) {
+            for (long boundary : boundaries) {
+                assertExpiresAt(start, start + boundary);
+            }
+        }
+    }
+    
+    @Test
+    void parkedEntryBeyondTopLevelExpiresOnTime() {
+        // Four levels of 64 slots cover 2^24 ticks; this entry starts parked in the top level
+        assertExpiresAt(0, (1L << 24) + 100);
+    }
+    
+    @Test
+    void cancelledEntryNeverExpires() {
+        TimingWheel wheel = new TimingWheel(TICK_MS, 0);
+        TimingWheel.Entry kept = wheel.newEntry("kept", "v", 100);
+        TimingWheel.Entry cancelled = wheel.newEntry("cancelled", "v", 100);
+        assertTrue(wheel.schedule(kept));
+        assertTrue(wheel.schedule(cancelled));
+        
+        wheel.cancel(cancelled);
+        wheel.cancel(cancelled); // Cancelling twice is harmless
+        assertEquals(1, wheel.size());
+        
+        List<String> expired = new ArrayList<>();
+        wheel.advance(200, entry -> expired.add(entry.key));
+        assertEquals(List.of("kept"), expired);
+        assertEquals(0, wheel.size());
+    }
+    
+    @Test
+    void alreadyExpiredEntryIsNotScheduled() {
+        TimingWheel wheel = new TimingWheel(TICK_MS, 500);
+        assertFalse(wheel.schedule(wheel.newEntry("past", "v", 400)));
+        assertFalse(wheel.schedule(wheel.newEntry("now", "v", 500)));
+        assertEquals(0, wheel.size());
+    }
+    
+    @Test
+    void pollEarliestReturnsEntriesInExpiryOrder() {
+        TimingWheel wheel = new TimingWheel(TICK_MS, 0);
+        for (long expiresAt : new long[]{300000, 5, 5000, 70, 3}) {
+            wheel.schedule(wheel.newEntry("k" + expiresAt, "v", expiresAt));
+        }
+        
+        List<Long> polled = new ArrayList<>();
+        TimingWheel.Entry entry;
+        while ((entry = wheel.pollEarliest()) != null) {
+            polled.add(entry.expiresAt);
+        }
+        assertEquals(List.of(3L, 5L, 70L, 5000L, 300000L), polled);
+        assertEquals(0, wheel.size());
+    }
+    
+    @Test
+    void randomEntriesNeverExpireEarlyAndAtMostOneTickLate() {
+        long tickMs = 1000;
+        long start = 1_700_000_000_123L;
+        Random random = new Random(42);
+        TimingWheel wheel = new TimingWheel(tickMs, start);
+        
+        Map<String, Long> pending = new HashMap<>();
+        for (int i = 0; i < 2000; i++) {
+            long expiresAt = start + 1 + (long) (random.nextDouble() * 3 * 24 * 3600 * 1000);
+            TimingWheel.Entry entry = wheel.newEntry("k" + i, "v", expiresAt);
+            assertTrue(wheel.schedule(entry));
+            pending.put(entry.key, expiresAt);
+        }
+        
+        long now = start;
+        long end = start + 3 * 24 * 3600 * 1000L + tickMs;
+        while (now < end) {
+            now = Math.min(end, now + 1 + random.nextInt(2 * 3600 * 1000));
+            long advancedTo = now;
+            wheel.advance(now, entry -> {
+                assertTrue(entry.expiresAt <= advancedTo, "Expired early: " + entry.key);
+                pending.remove(entry.key);
+            });
+            // Anything due before the current tick must be gone
+            for (long expiresAt : pending.values()) {
+                assertTrue(expiresAt > advancedTo - tickMs, "Expired late: " + expiresAt + " at " + advancedTo);
+            }
+        }
+        assertTrue(pending.isEmpty());
+        assertEquals(0, wheel.size());
+    }
+    
+    /**
+     * Schedule one entry and check it expires on its tick: not one tick before, and not after.
+     */
+    private static void assertExpiresAt(long start, long expiresAt) {
+        TimingWheel wheel = new TimingWheel(TICK_MS, start);
+        assertTrue(wheel.schedule(wheel.newEntry("k", "v", expiresAt)));
+        
+        List<TimingWheel.Entry> expired = new ArrayList<>();
+        wheel.advance(expiresAt - 1, expired::add);
+        assertTrue(expired.isEmpty(), "Expired early: " + expiresAt + " from " + start);
+        assertEquals(1, wheel.size());
+        
+        wheel.advance(expiresAt, expired::add);
+        assertEquals(1, expired.size(), "Not expired on time: " + expiresAt + " from " + start);
+        assertEquals(0, wheel.size());
+    }
+}